@@ -2,36 +2,35 @@ import compiler.Parser;
 import compiler.utils.FileUtils;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 
 public class Main {
     public static void main(String[] args) throws IOException {
         if (args.length >= 2) {
-            String src = FileUtils.readFile(args[1]).trim() + "\0";
+            String src = FileUtils.readFile(args[1]);
             Parser parser = new Parser(src);
+            String outFile = (args.length >= 4 && args[2].equals("-o"))? args[3] : null;
 
             switch (args[0]) {
                 case "-dump-tokens" -> {
-                    if (args.length >= 4 && args[2].equals("-o"))
-                        FileUtils.writeFile(args[3], parser.dumpTokens());
-                    else
-                        System.out.println(parser.dumpTokens());
+                    try (PrintWriter out = FileUtils.openWriter(outFile)) {
+                        parser.dumpTokens(out);
+                    }
                 }
                 case "-dump-ast" -> {
-                    if (args.length >= 4 && args[2].equals("-o"))
-                        FileUtils.writeFile(args[3], parser.dumpAST());
-                    else
-                        System.out.println(parser.dumpAST());
+                    try (PrintWriter out = FileUtils.openWriter(outFile)) {
+                        parser.dumpAST(out);
+                    }
                 }
                 case "-dump-symbol-table" -> {
-                    if (args.length >= 4 && args[2].equals("-o"))
-                        FileUtils.writeFile(args[3], parser.dumpSymTable());
-                    else
-                        System.out.println(parser.dumpSymTable());
+                    try (PrintWriter out = FileUtils.openWriter(outFile)) {
+                        parser.dumpSymTable(out);
+                    }
                 }
                 case "-llvm" -> {
-                    System.out.println(src);
-                    String outFile = (args.length >= 4 && args[2].equals("-o"))? args[3] : "debug/case.ll";
-                    FileUtils.writeFile(outFile, parser.dumpLLVM());
+                    try (PrintWriter out = FileUtils.openWriter(outFile != null? outFile : "debug/case.ll")) {
+                        parser.dumpLLVM(out);
+                    }
                 }
                 case "-dump-answers" -> {
                     System.out.println(src);
@@ -1,101 +1,129 @@
 package compiler;
 
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.GlobalVariable;
+import compiler.ir.IRBuilder;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Cond;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Module;
+import compiler.ir.Type;
+import compiler.ir.Value;
 import compiler.parser.ast.NodeData;
 import compiler.parser.ast.TreeNode;
-import compiler.semantics.Analyzer;
 import compiler.semantics.symtable.Item;
-import compiler.semantics.symtable.SymTable;
-import compiler.utils.StringUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
-import static compiler.exception.CompileException.error;
-
 
 public class Generator {
 
     private TreeNode<NodeData> ast;
-    private int regId;
-    private String product;
+    private final Module module;        /* 生成的 IR */
+    private final IRBuilder builder;
 
     /**
-     * 在生成器中，需要边遍历边填入新符号表
+     * 为条件语句和循环而设立的回填记录器，loops 只记录 while 语句的记录器
      */
-    private SymTable symTable;
-    private Analyzer analyzer;
+    private final Stack<Recorder> stk = new Stack<>();
+    private final Stack<Recorder> loops = new Stack<>();
 
     /**
-     * 为循环而设立的 tag
+     * 回填标记：跳转指令中待回填目标基本块的操作数位置
      */
-    private Stack<Recorder> stk = new Stack<Recorder>();
-
-    private int markId;
+    private static class Mark {
+        final Instruction inst;
+        final int index;
 
-    private class Mark {
-        String tag;
+        public Mark(Instruction inst, int index) {
+            this.inst = inst;
+            this.index = index;
+        }
 
-        public Mark(String t) {
-            this.tag = t;
+        /**
+         * 回填跳转目标，已回填的标记保持不变
+         *
+         * @param target 目标基本块
+         */
+        public void fill(BasicBlock target) {
+            if (inst.getOperand(index) == null)
+                inst.setOperand(index, target);
         }
     }
 
-    private class Recorder {
-        ArrayList<Mark> marks;
+    private static class Recorder {
+        final ArrayList<Mark> andMarks = new ArrayList<>();         /* && 短路跳转到假出口 */
+        final ArrayList<Mark> orMarks = new ArrayList<>();          /* || 短路跳转到真出口 */
+        final ArrayList<Mark> breakMarks = new ArrayList<>();
+        final ArrayList<Mark> continueMarks = new ArrayList<>();
 
-        public Recorder() {
-            this.marks = new ArrayList<>();
+        /**
+         * 回填列表中所有标记并清空列表
+         *
+         * @param list 标记列表
+         * @param target 目标基本块
+         */
+        public static void fillAll(ArrayList<Mark> list, BasicBlock target) {
+            for (Mark mark : list)
+                mark.fill(target);
+            list.clear();
         }
 
-        public void record(Mark m) {
-            this.marks.add(m);
+        /**
+         * 回填短路求值的跳转目标
+         *
+         * @param trueBlock 条件为真时跳转的基本块
+         * @param falseBlock 条件为假时跳转的基本块
+         */
+        public void fillCircuit(BasicBlock trueBlock, BasicBlock falseBlock) {
+            fillAll(orMarks, trueBlock);
+            fillAll(andMarks, falseBlock);
         }
     }
 
     public Generator(TreeNode<NodeData> tree) {
         this.ast = tree;
-        this.regId = 1;
-        this.product = """
-                declare i32 @getint()
-                declare void @putint(i32)
-                declare i32 @getch()
-                declare void @putch(i32)
-                declare i32 @getarray(i32*)
-                declare void @putarray(i32, i32*)
-                declare void @memset(i32*, i32, i32)
-                """;
-        this.symTable = new SymTable();
-        this.analyzer = new Analyzer(ast, symTable);
-
-        this.markId = 0;
+        this.module = new Module();
+        this.builder = new IRBuilder();
+        declareLibFunctions();
     }
 
-    public SymTable getSymTable() {
-        return this.symTable;
+    /**
+     * 声明运行时库函数
+     */
+    private void declareLibFunctions() {
+        module.addFunction(new Function("getint", Type.I32));
+        module.addFunction(new Function("putint", Type.VOID, Type.I32));
+        module.addFunction(new Function("getch", Type.I32));
+        module.addFunction(new Function("putch", Type.VOID, Type.I32));
+        module.addFunction(new Function("getarray", Type.I32, Type.I32_PTR));
+        module.addFunction(new Function("putarray", Type.VOID, Type.I32, Type.I32_PTR));
+        module.addFunction(new Function("memset", Type.VOID, Type.I32_PTR, Type.I32, Type.I32));
     }
 
     /**
-     * 生成 llvm 并返回生成代码
+     * 遍历语法树生成 IR，语法树须已经过 Checker 的语义分析
      *
-     * @return llvm字符串形式
+     * @return 编译单元的 IR
      */
-    public String generate() {
+    public Module generate() {
         visit(ast);
-        return product;
+        return module;
     }
 
     /**
-     * 处理经语义分析后的语法树，生成 llvm 代码记录于 product 中
+     * 处理经语义分析后的语法树，生成的 IR 记录于 module 中
      *
      * @param node 节点
      */
     private void visit(TreeNode<NodeData> node) {
-        analyzer.handleBlock(node);
         switch (node.data.name) {
             case "CompUnit" -> visitCompUnit(node);
             case "FuncDef" -> visitFuncDef(node);
-            case "FuncFParams" -> visitFuncFParams(node);
-            case "FuncFParam" -> visitFuncFParam(node);
             case "Block" -> visitBlock(node);
             case "ConstDef" -> visitConstDef(node);
             case "ConstInitVal" -> visitConstInitVal(node);
@@ -123,401 +151,195 @@ public class Generator {
     }
 
     private void visitCompUnit(TreeNode<NodeData> node) {
-        // 程序中必须存在且仅存在一个标识为 main 的 FuncDef
-        int _mainCount = 0;
-        for (TreeNode<NodeData> child : node.children) {
-            if (child.data.name.equals("FuncDef") && child.getChildAt(1).data.value.equals("main"))
-                _mainCount += 1;
-        }
-        if (_mainCount != 1) error();
-
         for (TreeNode<NodeData> child : node.children)
             visit(child);
     }
 
-    private Item funcNewItem;
-
     /**
-     * 当前节点为 FuncDef 节点时，添加函数定义语句
+     * 当前节点为 FuncDef 节点时，添加函数定义
      *
      * @param node FuncDef节点
      */
     private void visitFuncDef(TreeNode<NodeData> node) {
-        funcNewItem = analyzer.filFuncDef(node);
-        String funcName = node.getChildAt(1).data.value;
-
-        // 程序中必须存在且仅存在一个标识为 main、无参数、返回类型为 int 的 FuncDef
-        if (funcName.equals("main"))
-            if (node.children.size() != 5 || !node.getChildAt(0).getChildAt(0).data.value.equals("int"))
-                error();
-
-        Item funcItem = symTable.getItem(funcName);
-        if (node.children.size() == 5) {
-            // 无参数的函数寄存器ID从1开始
-            regId = 1;
-            product += "define dso_local " + funcItem.vType + " @" + funcName + "() {\n";
-            visit(node.getChildAt(4));
-        } else {
-            // 有参数的函数寄存器ID从0开始
-            regId = 0;
-            product += "define dso_local " + funcItem.vType + " @" + funcName + "(";
-            visit(node.getChildAt(3));
-            regId++;
-            product += node.getChildAt(3).data.value + ") {\n";
-            // 对形参进行初始化
-            for (Item item : symTable.getParams(analyzer.curBlockId+1)) {
-                int _oldRegId = item.regId;
-                item.regId = regId;
-                product += "%" + (regId++) + " = alloca " + item.vType + "\n";
-                product += "store " + item.vType + " %" + _oldRegId + ", " + item.vType + "* %" + item.regId + "\n";
-            }
-            visit(node.getChildAt(5));
-        }
-        if (node.getChildAt(0).getChildAt(0).data.value.equals("void") && !hasRet())
-            product += "ret void\n";
-        product += "}\n\n";
-    }
-
-    private void visitFuncFParams(TreeNode<NodeData> node) {
-        StringBuilder _value = new StringBuilder();
-        for (TreeNode<NodeData> child : node.children) {
-            if (child.data.name.equals("FuncFParam")) {
-                visit(child);
-                _value.append(child.data.value).append(",");
-            }
-        }
-        node.data.value = StringUtils.chop(_value.toString());
-    }
-
-    private void visitFuncFParam(TreeNode<NodeData> node) {
-        Item _item = analyzer.filFuncFParam(node);
-        funcNewItem.funcParams.add(_item); // 记录函数参数列表
-        if (_item.vType == Item.ValueType.ARRAY) {
-            _item.arraySize.add(0);
-            for (TreeNode<NodeData> child : node.children) {
-                if (child.data.name.equals("Expr")) {
-                    // 函数形参数组的尺寸要求可求值的常量表达式
-                    if (!analyzer.isConstInitVal(child)) error();
-                    visit(child);
-                    _item.arraySize.add(child.data.intValue);
-                }
-            }
+        Item funcItem = node.data.item;
+        Function function = new Function(node.getChildAt(1).data.value, irType(funcItem.vType));
+        module.addFunction(function);
+        funcItem.irValue = function;
+        builder.setFunction(function);
+        for (Item param : funcItem.funcParams)
+            param.irValue = function.addArgument(irType(param.vType));
+        // 对形参进行初始化：形参存入栈上的局部变量
+        for (Item param : funcItem.funcParams) {
+            Value arg = param.irValue;
+            param.irValue = builder.alloca(arg.type);
+            builder.store(arg, param.irValue);
+        }
+        visit(node.getChildAt(node.children.size()-1));
+        if (!builder.getBlock().isTerminated()) {
+            if (function.returnType == Type.VOID)
+                builder.retVoid();
+            else
+                builder.ret(ConstantInt.ZERO);
         }
-        _item.regId = regId;
-        node.data.value = _item.vType + " %" + (regId++);
+        function.buildCFG();
     }
 
     private void visitBlock(TreeNode<NodeData> node) {
         for (TreeNode<NodeData> child : node.children) {
             switch (child.data.value) {
-                case "{", "}" -> analyzer.handleBlock(child);
-                // A new block
-                default -> {
-                    visit(child);
-                }
-            }
-        }
-    }
-
-    private void visitConstValDef(TreeNode<NodeData> node) {
-        Item declItem = analyzer.filConstValDef(node);
-        String declName = node.getChildAt(0).data.value;
-
-        if (declItem.blockId == 0) {
-            visit(node.getChildAt(2));
-            product += "@" + declName + " = dso_local global i32 "
-                    + node.getChildAt(2).data.intValue + "\n";
-        } else {
-            declItem.regId = regId;
-            String decl = "%" + (regId++);
-            product += decl + " = alloca " + declItem.vType + "\n";
-            visit(node.getChildAt(2));
-            if (declItem.blockId == 0) {
-                product += "store " + "i32 "
-                        + node.getChildAt(2).data.value + ", "
-                        + "i32* @" + declName + "\n";
-            } else {
-                product += "store " + "i32 "
-                        + node.getChildAt(2).data.value + ", "
-                        + "i32* " + decl + "\n";
-            }
-        }
-        node.data.intValue = node.getChildAt(2).data.intValue;
-        declItem.intValue = node.getChildAt(2).data.intValue;
-    }
-
-    private ArrayList<Integer> arrayShape;
-
-    private void visitConstArrayDef(TreeNode<NodeData> node) {
-        Item declItem = analyzer.filConstArrayDef(node);
-        String declName = node.getChildAt(0).data.value;
-
-        boolean hasConstInit = false;
-        int size = 1;
-        for (TreeNode<NodeData> child : node.children) {
-            if (child.data.name.equals("ConstExpr")) {
-                visit(child);
-                if (child.data.intValue < 0) error();
-                declItem.arraySize.add(child.data.intValue);
-                size *= child.data.intValue;
-            }
-            if (child.data.name.equals("ConstInitVal"))
-                hasConstInit = true;
-        }
-        this.arrayShape = declItem.arraySize;
-
-        TreeNode<NodeData> constInitVal = node.getChildAt(node.children.size()-1);
-
-        // ConstDef -> Ident { '[' ConstExp ']' } '=' ConstInitVal
-        if (analyzer.curBlockId == 0) {
-            product += "@" + declName + " = dso_local constant "
-                    + "[" + size + " x i32] ";
-            if (hasConstInit) {
-                visit(constInitVal);
-                product += "[" + constInitVal.data.value + "]\n";
-            } else {
-                product += "zeroinitializer\n";
-            }
-        } else {
-            declItem.regId = regId;
-            String decl = "%" + (regId++);
-            product += decl + " = alloca [" + size + " x i32]\n";
-            String _reg = "%" + (regId++);
-            product += _reg + " = getelementptr [" + size + " x i32], ["
-                    + size + " x i32]* " + decl + ", i32 0, i32 0\n"
-                    + "call void @memset(i32* " + _reg + ", i32 0, i32 " + 4 * size + ")\n";
-            if (hasConstInit) {
-                visit(constInitVal);
+                case "{", "}" -> {}
+                default -> visit(child);
             }
         }
     }
 
     private void visitConstDef(TreeNode<NodeData> node) {
-        TreeNode<NodeData> ident = node.getChildAt(0);
-        if (!symTable.isDeclAvail(ident.data.value, analyzer.curBlockId)) // 若同区块内该变量名被用，则报错
-            error();
-
-        if (node.children.size() == 3) visitConstValDef(node);
-        else visitConstArrayDef(node);
-    }
-
-    private void visitConstInitValNonArray(TreeNode<NodeData> node) {
-        if (!analyzer.isConstInitVal(node))
-            error();
-        visit(node.getChildAt(0));
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
-    }
-
-    private int initDepth(TreeNode<NodeData> node) {
-        int depth = 0;
-        TreeNode<NodeData> temp = node;
-        while (!temp.parent.getChildAt(0).data.name.equals("Ident")) {
-            temp = temp.parent;
-            depth++;
-        }
-        return depth;
-    }
-
-    private int arrayRegId(TreeNode<NodeData> node) {
-        TreeNode<NodeData> temp = node;
-        while (!temp.parent.getChildAt(0).data.name.equals("Ident")) {
-            temp = temp.parent;
-        }
-        temp = temp.parent.getChildAt(0);
-        return symTable.getItem(temp.data.value).regId;
+        if (node.children.size() == 3) visitValDef(node);
+        else visitArrayDef(node, "ConstInitVal", true);
     }
 
-    private int fillEmptySize(TreeNode<NodeData> node, int cnt) {
-        int depth = initDepth(node);
-        int temp = 1;
-        for (int i = depth+1; i < this.arrayShape.size(); i++)
-            temp *= this.arrayShape.get(i);
-        try {
-            return (this.arrayShape.get(depth)-cnt) * temp;
-        } catch (Exception e) {
-            error();
-            return 0;
-        }
-    }
-
-    private void visitConstInitArray(TreeNode<NodeData> node) {
-        /*
-         * TODO: 初始化
-         * 1. 只有花括号则全部初始化为 0
-         * 2. 初始化和维度完全对应则一一对应
-         * 3. 初始化值少于维度个数，其余隐式初始化为 0
-         */
-        if (analyzer.curBlockId == 0) {
-            if (!analyzer.isConstInitVal(node)) error();
-            if (node.getChildAt(0).data.name.equals("ConstExpr")) {
-                if (initDepth(node) != this.arrayShape.size()) error();
-                visit(node.getChildAt(0));
-                node.data.value = "i32 " + node.getChildAt(0).data.intValue;
-            } else {
-                int cnt = 0;
-                for (TreeNode<NodeData> child : node.children) {
-                    if (child.data.name.equals("ConstInitVal")) {
-                        cnt++;
-                        visitConstInitArray(child);
-                        node.data.value += child.data.value + ",";
-                    }
-                }
-                int _fill_size = fillEmptySize(node, cnt);
-                if (_fill_size >= 0)
-                    node.data.value += "i32 0,".repeat(fillEmptySize(node, cnt));
-                else error();
-                node.data.value = StringUtils.chop(node.data.value);
-            }
-        } else {
-            if (!analyzer.hasCerVal(node)) error();
-        }
-    }
-
-    private void visitConstInitVal(TreeNode<NodeData> node) {
-        if (node.children.size() == 1)
-            visitConstInitValNonArray(node);
-        else
-            visitConstInitArray(node);
-    }
-
-    private void visitConstExp(TreeNode<NodeData> node) {
-        if (!analyzer.isConstInitVal(node))
-            error();
-        visit(node.getChildAt(0));
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
-        node.data.dimension = node.getChildAt(0).data.dimension;
+    private void visitVarDef(TreeNode<NodeData> node) {
+        if (node.data.item.vType == Item.ValueType.ARRAY) visitArrayDef(node, "InitVal", false);
+        else visitValDef(node);
     }
 
-    private void visitVarValDef(TreeNode<NodeData> node) {
+    /**
+     * 非数组的常量与变量定义：全局定义直接使用语义分析求得的值，局部定义分配栈空间后存入初始值
+     *
+     * @param node ConstDef或VarDef节点
+     */
+    private void visitValDef(TreeNode<NodeData> node) {
+        Item declItem = node.data.item;
         String declName = node.getChildAt(0).data.value;
-        Item declItem = analyzer.filVarValDef(node);
 
         if (declItem.blockId == 0) {
-            if (node.children.size() == 1) {
-                product += "@" + declName + " = dso_local global i32 0\n";
-                declItem.intValue = 0;
-            } else {
-                visit(node.getChildAt(2));
-                product += "@" + declName + " = dso_local global i32 "
-                        + node.getChildAt(2).data.intValue + "\n";
-                declItem.intValue = node.getChildAt(2).data.intValue;
-            }
+            GlobalVariable global = new GlobalVariable(declName, Type.I32, false, new int[]{node.data.intValue});
+            module.addGlobal(global);
+            declItem.irValue = global;
         } else {
-            declItem.regId = regId;
-            String decl = "%" + (regId++);
-            product += decl + " = alloca " + declItem.vType + "\n";
-
+            declItem.irValue = builder.alloca(Type.I32);
             if (node.children.size() >= 3) {
                 visit(node.getChildAt(2));
-                if (declItem.blockId == 0) {
-                    product += "store i32 "
-                            + node.getChildAt(2).data.value + ", "
-                            + "i32* @" + declName + "\n";
-                } else {
-                    product += "store i32 "
-                            + node.getChildAt(2).data.value + ", "
-                            + "i32* " + decl + "\n";
-                }
-                declItem.intValue = node.getChildAt(2).data.intValue;
+                builder.store(node.getChildAt(2).data.irValue, declItem.irValue);
             }
         }
-        node.data.intValue = declItem.intValue;
     }
 
-    private void visitVarArrayDef(TreeNode<NodeData> node) {
-        Item declItem = analyzer.filVarArrayDef(node);
-        String declName = node.getChildAt(0).data.value;
+    private ArrayList<Integer> arrayShape;
 
-        boolean hasInitVal = false;
-        int size = 1;
-        for (TreeNode<NodeData> child : node.children) {
-            if (child.data.name.equals("ConstExpr")) {
-                visit(child);
-                if (child.data.intValue < 0) error();
-                declItem.arraySize.add(child.data.intValue);
-                size *= child.data.intValue;
-            }
-            if (child.data.name.equals("InitVal"))
-                hasInitVal = true;
-        }
+    /**
+     * 数组定义：全局数组按初始值列表展开为常量，局部数组在栈上清零后逐个存入初始值
+     *
+     * @param node ConstDef或VarDef节点
+     * @param initName 初始值节点名
+     * @param isConst 是否为常量数组
+     */
+    private void visitArrayDef(TreeNode<NodeData> node, String initName, boolean isConst) {
+        Item declItem = node.data.item;
+        String declName = node.getChildAt(0).data.value;
         this.arrayShape = declItem.arraySize;
+        int size = getAllSize(arrayShape);
 
         TreeNode<NodeData> initVal = node.getChildAt(node.children.size()-1);
+        boolean hasInit = initVal.data.name.equals(initName);
 
-        if (analyzer.curBlockId == 0) {
-            product += "@" + declName + " = dso_local global "
-                    + "[" + size + " x i32] ";
-            if (hasInitVal) {
-                visit(initVal);
-                product += "[" + initVal.data.value + "]\n";
-            } else {
-                product += "zeroinitializer\n";
+        // ConstDef -> Ident { '[' ConstExp ']' } '=' ConstInitVal
+        if (declItem.blockId == 0) {
+            int[] init = null;
+            if (hasInit) {
+                if (initVal.children.size() == 1) {
+                    init = new int[0];
+                } else {
+                    init = new int[size];
+                    fillGlobalInit(initVal, init, 0, 0);
+                }
             }
+            GlobalVariable global = new GlobalVariable(declName, Type.array(size, Type.I32), isConst, init);
+            module.addGlobal(global);
+            declItem.irValue = global;
         } else {
             // 局部数组初始化
-            declItem.regId = regId;
-            String decl = "%" + (regId++);
-            String init_reg = "%" + (regId++);
-            product += decl + " = alloca [" + size + " x i32]\n"
-                    + init_reg + " = getelementptr [" + size + " x i32], ["
-                    + size + " x i32]* " + decl + ", i32 0, i32 0\n"
-                    + "call void @memset(i32* " + init_reg + ", i32 0, i32 "
-                    + size * 4 + ")\n";
-
-            if (hasInitVal) {
-                visit(initVal);
-//                product += "store i32 "
-//                        + node.getChildAt(2).data.value + ", "
-//                        + declItem.vType + "* " + decl + "\n";
-//                declItem.intValue = node.getChildAt(2).data.intValue;
+            declItem.irValue = localArray(size);
+            if (hasInit) {
+                if (initVal.children.size() == 1)
+                    visit(initVal.getChildAt(0));
+                else
+                    storeLocalInit(initVal, declItem.irValue, 0, 0);
             }
         }
     }
 
-    private void visitVarDef(TreeNode<NodeData> node) {
-        boolean isArray = false;
-        for (TreeNode<NodeData> child : node.children)
-            if (child.data.value.equals("[")) {
-                isArray = true;
-                break;
-            }
-        if (isArray) visitVarArrayDef(node);
-        else visitVarValDef(node);
+    /**
+     * 在栈上分配局部数组并清零
+     *
+     * @param size 数组元素个数
+     * @return 数组地址
+     */
+    private Value localArray(int size) {
+        Value array = builder.alloca(Type.array(size, Type.I32));
+        Value first = builder.gep(array, ConstantInt.ZERO, ConstantInt.ZERO);
+        builder.call(module.getFunction("memset"),
+                List.of(first, ConstantInt.ZERO, ConstantInt.get(4 * size)));
+        return array;
     }
 
-    private void visitInitVarVal(TreeNode<NodeData> node) {
-        visit(node.getChildAt(0));
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
+    /**
+     * 同一维中各元素间隔的元素个数
+     *
+     * @param depth 维数下标
+     * @return 间隔
+     */
+    private int strideOf(int depth) {
+        int stride = 1;
+        for (int i = depth+1; i < this.arrayShape.size(); i++)
+            stride *= this.arrayShape.get(i);
+        return stride;
     }
 
-    private int getInitValIndex(TreeNode<NodeData> node) {
-        int idx = 0;
-        for (TreeNode<NodeData> child : node.parent.children) {
-            if (child.data.name.equals("InitVal")) {
-                if (child == node)
-                    break;
+    /**
+     * 全局数组初始化：将初始值填入展开后对应位置，未给出的元素保持为 0
+     *
+     * @param node ConstInitVal或InitVal节点
+     * @param init 展开后的初始值
+     * @param pos 该节点对应的起始位置
+     * @param depth 该节点所在的维数
+     */
+    private void fillGlobalInit(TreeNode<NodeData> node, int[] init, int pos, int depth) {
+        if (depth == this.arrayShape.size()) {
+            init[pos] = node.getChildAt(0).data.intValue;
+            return;
+        }
+        int stride = strideOf(depth), idx = 0;
+        for (TreeNode<NodeData> child : node.children) {
+            if (child.data.name.equals(node.data.name)) {
+                fillGlobalInit(child, init, pos + idx * stride, depth+1);
                 idx++;
             }
         }
-        return idx;
     }
 
-    private int getElePos(TreeNode<NodeData> node) {
-        ArrayList<Integer> idxs = new ArrayList<>();
-        TreeNode<NodeData> temp = node;
-        while (!temp.parent.getChildAt(0).data.name.equals("Ident")) {
-            idxs.add(getInitValIndex(temp));
-            temp = temp.parent;
+    /**
+     * 局部数组初始化：将初始值存入元素对应位置
+     *
+     * @param node ConstInitVal或InitVal节点
+     * @param array 数组地址
+     * @param pos 该节点对应的起始位置
+     * @param depth 该节点所在的维数
+     */
+    private void storeLocalInit(TreeNode<NodeData> node, Value array, int pos, int depth) {
+        if (depth == this.arrayShape.size()) {
+            visit(node.getChildAt(0));
+            Value pointer = builder.gep(array, ConstantInt.ZERO, ConstantInt.get(pos));
+            builder.store(node.getChildAt(0).data.irValue, pointer);
+            return;
         }
-        int length = idxs.size();
-        int res = idxs.get(length-1);
-        for (int i = length-2; i >= 0; i--) {
-            res = res * this.arrayShape.get(length-i-1) + idxs.get(i);
+        int stride = strideOf(depth), idx = 0;
+        for (TreeNode<NodeData> child : node.children) {
+            if (child.data.name.equals(node.data.name)) {
+                storeLocalInit(child, array, pos + idx * stride, depth+1);
+                idx++;
+            }
         }
-        return res;
     }
 
     private int getAllSize(ArrayList<Integer> arrayShape) {
@@ -528,59 +350,19 @@ public class Generator {
         return size;
     }
 
-    private void visitInitArrayVal(TreeNode<NodeData> node) {
-        if (analyzer.curBlockId == 0) {
-            if (node.getChildAt(0).data.name.equals("Expr")) {
-                if (initDepth(node) != this.arrayShape.size()) error();
-                visit(node.getChildAt(0));
-                node.data.value = "i32 " + node.getChildAt(0).data.intValue;
-            } else {
-                int cnt = 0;
-                for (TreeNode<NodeData> child : node.children) {
-                    if (child.data.name.equals("InitVal")) {
-                        cnt++;
-                        visitInitArrayVal(child);
-                        node.data.value += child.data.value + ",";
-                    }
-                }
-                int _fill_size = fillEmptySize(node, cnt);
-                if (_fill_size >= 0)
-                    node.data.value += "i32 0,".repeat(fillEmptySize(node, cnt));
-                else error();
-                node.data.value = StringUtils.chop(node.data.value);
-            }
-        } else {
-            if (node.getChildAt(0).data.name.equals("Expr")) {
-                if (initDepth(node) != this.arrayShape.size()) error();
-                visit(node.getChildAt(0));
+    private void visitConstInitVal(TreeNode<NodeData> node) {
+        visit(node.getChildAt(0));
+        node.data.irValue = node.getChildAt(0).data.irValue;
+    }
 
-                String reg = "%" + (regId++);
-                int size = getAllSize(this.arrayShape);
-                product += reg + " = getelementptr [" + size
-                        + " x i32],[" + size + " x i32]* %" + arrayRegId(node)
-                        + ", i32 0, i32 " + getElePos(node) + "\n"
-                        + "store i32 " + node.getChildAt(0).data.value
-                        + ", i32* " + reg + "\n";
-            } else {
-                int cnt = 0;
-                for (TreeNode<NodeData> child : node.children) {
-                    if (child.data.name.equals("InitVal")) {
-                        cnt++;
-                        visitInitArrayVal(child);
-                    }
-                }
-                int _fill_size = fillEmptySize(node, cnt);
-                if (_fill_size < 0) error();
-            }
-        }
+    private void visitConstExp(TreeNode<NodeData> node) {
+        visit(node.getChildAt(0));
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
     private void visitInitVal(TreeNode<NodeData> node) {
-        if (analyzer.curBlockId == 0 && !analyzer.isConstInitVal(node))
-            error();
-
-        if (node.children.size() == 1) visitInitVarVal(node);
-        else visitInitArrayVal(node);
+        visit(node.getChildAt(0));
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
     /**
@@ -598,9 +380,7 @@ public class Generator {
      * @param node Stmt节点
      */
     private void visitBreakStmt(TreeNode<NodeData> node) {
-        int markId = stk.peek().marks.size();
-        stk.peek().record(new Mark("break" + markId));
-        product += "break" + markId;
+        loops.peek().breakMarks.add(new Mark(builder.br(null), 0));
     }
 
     /**
@@ -609,9 +389,7 @@ public class Generator {
      * @param node Stmt节点
      */
     private void visitContinueStmt(TreeNode<NodeData> node) {
-        int markId = stk.peek().marks.size();
-        stk.peek().record(new Mark("continue" + markId));
-        product += "continue" + markId;
+        loops.peek().continueMarks.add(new Mark(builder.br(null), 0));
     }
 
     /**
@@ -621,13 +399,11 @@ public class Generator {
      */
     private void visitExprStmt(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
-        node.data.dimension = node.getChildAt(0).data.dimension;
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
     private void visitRetVoidStmt(TreeNode<NodeData> node) {
-        product += "ret void\n";
+        builder.retVoid();
     }
 
     /**
@@ -637,7 +413,7 @@ public class Generator {
      */
     private void visitRetExpr(TreeNode<NodeData> node) {
         visit(node.getChildAt(1));
-        product += "ret i32 " + node.getChildAt(1).data.value + "\n";
+        builder.ret(node.getChildAt(1).data.irValue);
     }
 
     /**
@@ -647,13 +423,9 @@ public class Generator {
      */
     private void visitAlignExpr(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        String val = node.getChildAt(0).getChildAt(0).data.value;
-        Item valItem = symTable.getItem(val);
         visit(node.getChildAt(2));
-        // 全局变量和局部变量的赋值不同，前者为 @，后者为 %
-        product += "store i32 "
-                + node.getChildAt(2).data.value + ", "
-                + "i32* " + node.getChildAt(0).data.value + "\n";
+        // 左值节点的值为变量地址：全局变量为 @，局部变量为 alloca 或 getelementptr 的结果
+        builder.store(node.getChildAt(2).data.irValue, node.getChildAt(0).data.irValue);
     }
 
     /**
@@ -662,27 +434,20 @@ public class Generator {
      * @param node Stmt节点
      */
     private void visitIfStmt(TreeNode<NodeData> node) {
-        stk.push(new Recorder());
+        Recorder recorder = stk.push(new Recorder());
 
         visit(node.getChildAt(2));
-        String mark_1 = "IF" + (++markId);
-        product += "br i1 " + node.getChildAt(2).data.value
-                + ", label " + mark_1;
-        int reg_1 = (regId++);
-        product += "\n" + reg_1 + ":\n";
+        Instruction br_1 = builder.condBr(node.getChildAt(2).data.irValue, null, null);
+        BasicBlock block_1 = builder.newBlock();
         visit(node.getChildAt(4));
-        int reg_2 = (regId++);
-        if (!hasRet())
-            product += "br label %" + reg_2 + "\n";
-        product += "\n" + reg_2 + ":\n";
-        repRecord(mark_1, "%" + reg_1 + ", label %" + reg_2 + "\n");
-
-        for (var mark : stk.peek().marks) {
-            if (mark.tag.startsWith("CIRCUIT_AND"))
-                repRecord(mark.tag, "%" + reg_2);
-            else if (mark.tag.startsWith("CIRCUIT_OR"))
-                repRecord(mark.tag, "%" + reg_1);
-        }
+        BasicBlock block_2 = builder.getFunction().newBlock();
+        if (!builder.getBlock().isTerminated())
+            builder.br(block_2);
+        builder.setBlock(block_2);
+        br_1.setOperand(1, block_1);
+        br_1.setOperand(2, block_2);
+
+        recorder.fillCircuit(block_1, block_2);
         stk.pop();
     }
 
@@ -692,39 +457,25 @@ public class Generator {
      * @param node Stmt节点
      */
     private void visitIfElseStmt(TreeNode<NodeData> node) {
-        stk.push(new Recorder());
+        Recorder recorder = stk.push(new Recorder());
 
         visit(node.getChildAt(2));
-        product += "br i1 " + node.getChildAt(2).data.value + ", label ";
-        String mark_1 = "IF_ELSE" + (++markId);
-        product += mark_1;
-        int reg_1 = (regId++);
-        product += "\n" + reg_1 + ":\n";
+        Instruction br_1 = builder.condBr(node.getChildAt(2).data.irValue, null, null);
+        BasicBlock block_1 = builder.newBlock();
         visit(node.getChildAt(4));
-        int len_2 = product.length();
-        String mark_2 = "";
-        if (!hasRet(len_2)) {
-            mark_2 = "IF_ELSE" + (++markId);
-            product += mark_2;
-        }
-        int reg_2 = (regId++);
-        product += "\n" + reg_2 + ":\n";
-        // TODO: CIRCUIT
+        Instruction br_2 = builder.getBlock().isTerminated() ? null : builder.br(null);
+        BasicBlock block_2 = builder.newBlock();
         visit(node.getChildAt(6));
-        int reg_3 = (regId++);
-        if (!hasRet())
-            product += "br label %" + reg_3 + "\n";
-        product += "\n" + reg_3 + ":\n";
-        if (!hasRet(len_2))
-            repRecord(mark_2, "br label %" + reg_3 + "\n");
-        repRecord(mark_1, "%" + reg_1 + ", label %" + reg_2 + "\n");
-
-        for (var mark : stk.peek().marks) {
-            if (mark.tag.startsWith("CIRCUIT_AND"))
-                repRecord(mark.tag, "%" + reg_2);
-            else if (mark.tag.startsWith("CIRCUIT_OR"))
-                repRecord(mark.tag, "%" + reg_1);
-        }
+        BasicBlock block_3 = builder.getFunction().newBlock();
+        if (!builder.getBlock().isTerminated())
+            builder.br(block_3);
+        builder.setBlock(block_3);
+        if (br_2 != null)
+            br_2.setOperand(0, block_3);
+        br_1.setOperand(1, block_1);
+        br_1.setOperand(2, block_2);
+
+        recorder.fillCircuit(block_1, block_2);
         stk.pop();
     }
 
@@ -734,36 +485,28 @@ public class Generator {
      * @param node Stmt节点
      */
     private void visitWhileStmt(TreeNode<NodeData> node) {
-        stk.push(new Recorder());
+        Recorder recorder = stk.push(new Recorder());
+        loops.push(recorder);
 
-        int reg_1 = (regId++);
-        product += "br label %" + reg_1 + "\n";
-        product += "\n" + reg_1 + ":\n";
+        BasicBlock block_1 = builder.getFunction().newBlock();
+        builder.br(block_1);
+        builder.setBlock(block_1);
         visit(node.getChildAt(2));
-        String mark_1 = "WHILE" + (++markId);
-        product += "br i1 " + node.getChildAt(2).data.value
-                + ", label " + mark_1;
+        Instruction br_1 = builder.condBr(node.getChildAt(2).data.irValue, null, null);
 
-        int reg_2 = (regId++);
-        product += "\n" + reg_2 + ":\n";
+        BasicBlock block_2 = builder.newBlock();
         visit(node.getChildAt(4));
 
-        if (!hasRet())
-            product += "br label %" + reg_1 + "\n";
-        int reg_3 = (regId++);
-        product += "\n" + reg_3 + ":\n";
-        repRecord(mark_1, "%" + reg_2 + ", label %" + reg_3 + "\n");
-
-        for (var mark : stk.peek().marks) {
-            if (mark.tag.startsWith("break"))
-                repRecord(mark.tag, "br label %" + reg_3 + "\n");
-            else if (mark.tag.startsWith("continue"))
-                repRecord(mark.tag, "br label %" + reg_1 + "\n");
-            else if (mark.tag.startsWith("CIRCUIT_AND"))
-                repRecord(mark.tag, "%" + reg_3);
-            else if (mark.tag.startsWith("CIRCUIT_OR"))
-                repRecord(mark.tag, "%" + reg_2);
-        }
+        if (!builder.getBlock().isTerminated())
+            builder.br(block_1);
+        BasicBlock block_3 = builder.newBlock();
+        br_1.setOperand(1, block_2);
+        br_1.setOperand(2, block_3);
+
+        Recorder.fillAll(recorder.breakMarks, block_3);
+        Recorder.fillAll(recorder.continueMarks, block_1);
+        recorder.fillCircuit(block_2, block_3);
+        loops.pop();
         stk.pop();
     }
 
@@ -796,130 +539,93 @@ public class Generator {
     private void visitCond(TreeNode<NodeData> node) {
         for (TreeNode<NodeData> child : node.children)
             visit(child);
-        node.data.value = node.getChildAt(0).data.value;
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
     private void visitExpr(TreeNode<NodeData> node) {
         for (TreeNode<NodeData> child : node.children)
             visit(child);
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
-        node.data.dimension = node.getChildAt(0).data.dimension;
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
+    /**
+     * 加法与乘法表达式：语义分析已求得值的表达式先依次计算各操作数，否则边计算操作数边生成运算
+     *
+     * @param node AddExpr或MulExpr节点
+     */
     private void visitOperaExpr(TreeNode<NodeData> node) {
-        boolean computed = false;
-        if (analyzer.curBlockId == 0 || analyzer.hasCerVal(node)) {
-            computed = true;
-            visit(node.getChildAt(0));
-            // 计算实际值
-            Integer v1 = node.getChildAt(0).data.intValue;
-            Integer v2 = v1;
-//            if (v1 == null) return;
-            for (int i = 2; i < node.children.size(); i+=2) {
+        boolean computed = node.data.intValue != null;
+        if (computed)
+            for (int i = 0; i < node.children.size(); i+=2)
                 visit(node.getChildAt(i));
-                Integer v_temp = node.getChildAt(i).data.intValue;
-//                if (v_temp == null) return;
-                if (v1 != null && v_temp != null) {
-                    switch (node.getChildAt(i-1).data.value) {
-                        case "+" -> v2 = v1 + v_temp;
-                        case "-" -> v2 = v1 - v_temp;
-                        case "*" -> v2 = v1 * v_temp;
-                        case "/" -> v2 = v1 / v_temp;
-                        case "%" -> v2 = v1 % v_temp;
-                    }
-                }
-                v1 = v2;
-            }
-            node.data.intValue = v2;
-        }
-        if (analyzer.curBlockId > 0) {
+        if (!computed)
+            visit(node.getChildAt(0));
+        Value value_1 = node.getChildAt(0).data.irValue;
+        for (int i = 2; i < node.children.size(); i+=2) {
             if (!computed)
-                visit(node.getChildAt(0));
-            String value_1 = node.getChildAt(0).data.value;
-            String value_2 = node.getChildAt(0).data.value;
-            for (int i = 2; i < node.children.size(); i+=2) {
-                if (!computed)
-                    visit(node.getChildAt(i));
-                value_2 = "%" + (regId++);
-                product += value_2 + " = "
-                        + flagOfOpera(node.getChildAt(i-1).data.value)
-                        + " i32 " + value_1
-                        + ", " + node.getChildAt(i).data.value + "\n";
-                value_1 = value_2;
-            }
-            node.data.value = value_2;
+                visit(node.getChildAt(i));
+            value_1 = builder.binary(opOfOpera(node.getChildAt(i-1).data.value),
+                    value_1, node.getChildAt(i).data.irValue);
         }
-        node.data.dimension = node.getChildAt(0).data.dimension;
+        node.data.irValue = value_1;
+    }
+
+    /**
+     * 比较运算的操作数须为 i32，嵌套比较的 i1 结果先扩展
+     *
+     * @param value 操作数
+     * @return i32 操作数
+     */
+    private Value toI32(Value value) {
+        return value.type == Type.I1 ? builder.zext(value) : value;
     }
 
     private void visitCmpExpr(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        String value_1 = node.getChildAt(0).data.value;
-        String value_2 = node.getChildAt(0).data.value;
+        Value value_1 = node.getChildAt(0).data.irValue;
+        Value value_2 = value_1;
         int childCnt = node.children.size();
         if (childCnt == 1 && node.data.name.equals("RelExpr") && node.parent.children.size() == 1) {
-            value_2 = "%" + (regId++);
-            product += value_2 + " = icmp ne i32 "
-                    + value_1
-                    + ", 0\n";
+            value_2 = builder.icmp(Cond.NE, value_1, ConstantInt.ZERO);
         }
         for (int i = 2; i < childCnt; i+=2) {
             visit(node.getChildAt(i));
-            value_2 = "%" + (regId++);
-            product += value_2 + " = icmp "
-                    + flagOfOpera(node.getChildAt(i-1).data.value)
-                    + " i32 " + value_1
-                    + ", " + node.getChildAt(i).data.value + "\n";
+            value_2 = builder.icmp(condOfOpera(node.getChildAt(i-1).data.value),
+                    toI32(value_1), toI32(node.getChildAt(i).data.irValue));
             value_1 = value_2;
         }
-        node.data.value = value_2;
-        node.data.dimension = node.getChildAt(0).data.dimension;
+        node.data.irValue = value_2;
     }
 
     private void visitAndExpr(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        String value_1 = node.getChildAt(0).data.value;
-        String value_2;
+        Value value_1 = node.getChildAt(0).data.irValue;
         for (int i = 2; i < node.children.size(); i += 2) {
-            value_2 = String.valueOf(regId++);
-
-            String mark = "CIRCUIT_AND" + (++markId);
-            stk.peek().record(new Mark(mark));
-
-            product += "br i1 " + node.getChildAt(i-2).data.value
-                    + ", label %" + value_2
-                    + ", label " + mark + "\n"
-                    + "\n" + value_2 + ":\n";
+            Instruction br = builder.condBr(node.getChildAt(i-2).data.irValue, null, null);
+            br.setOperand(1, builder.newBlock());
+            stk.peek().andMarks.add(new Mark(br, 2));
             visit(node.getChildAt(i));
-            value_1 = node.getChildAt(i).data.value;
+            value_1 = node.getChildAt(i).data.irValue;
         }
-        node.data.value = value_1;
+        node.data.irValue = value_1;
     }
 
     private void visitOrExpr(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        String value_1 = node.getChildAt(0).data.value;
-        String value_2;
+        Value value_1 = node.getChildAt(0).data.irValue;
         for (int i = 2; i < node.children.size(); i += 2) {
-            value_2 = String.valueOf(regId++);
-
-            String mark = "CIRCUIT_OR" + (++markId);
-            stk.peek().record(new Mark(mark));
+            Instruction br = builder.condBr(node.getChildAt(i-2).data.irValue, null, null);
+            BasicBlock next = builder.newBlock();
+            br.setOperand(2, next);
+            stk.peek().orMarks.add(new Mark(br, 1));
 
-            for (var t_mark : stk.peek().marks) {
-                if (t_mark.tag.startsWith("CIRCUIT_AND"))
-                    repRecord(t_mark.tag, "%" + value_2);
-            }
+            // 左侧 && 的假出口即为下一个 || 操作数
+            Recorder.fillAll(stk.peek().andMarks, next);
 
-            product += "br i1 " + node.getChildAt(i-2).data.value
-                    + ", label " + mark
-                    + ", label %" + value_2 + "\n"
-                    + "\n" + value_2 + ":\n";
             visit(node.getChildAt(i));
-            value_1 = node.getChildAt(i).data.value;
+            value_1 = node.getChildAt(i).data.irValue;
         }
-        node.data.value = value_1;
+        node.data.irValue = value_1;
     }
 
     /**
@@ -929,9 +635,7 @@ public class Generator {
      */
     private void visitPrimUE(TreeNode<NodeData> node) {
         visit(node.getChildAt(0));
-        node.data.value = node.getChildAt(0).data.value;
-        node.data.intValue = node.getChildAt(0).data.intValue;
-        node.data.dimension = node.getChildAt(0).data.dimension;
+        node.data.irValue = node.getChildAt(0).data.irValue;
     }
 
     /**
@@ -941,20 +645,12 @@ public class Generator {
      */
     private void visitFuncUE(TreeNode<NodeData> node) {
         String funcName = node.getChildAt(0).data.value;
-        Item funcItem = symTable.getItem(funcName);
         visit(node.getChildAt(2));
-        if (!analyzer.isFuncParamValid(node)) error();
-        if (funcItem.vType == Item.ValueType.INT) {
-            String reg = "%" + (regId++);
-            node.data.value = reg;
-            product += reg + " = ";
-        }
-        product += "call " + funcItem.vType
-                + " @" + funcName
-                + "("
-                + node.getChildAt(2).data.value
-                + ")\n";
-        node.data.dimension = 0;
+        ArrayList<Value> args = new ArrayList<>();
+        for (TreeNode<NodeData> child : node.getChildAt(2).children)
+            if (child.data.name.equals("Expr"))
+                args.add(child.data.irValue);
+        node.data.irValue = builder.call(module.getFunction(funcName), args);
     }
 
     /**
@@ -964,17 +660,7 @@ public class Generator {
      */
     private void visitNoParamFuncUE(TreeNode<NodeData> node) {
         String funcName = node.getChildAt(0).data.value;
-        Item funcItem = symTable.getItem(funcName);
-        if (funcItem.vType == Item.ValueType.INT) {
-            String reg = "%" + (regId++);
-            node.data.value = reg;
-            product += reg + " = ";
-        }
-        product += "call " + funcItem.vType.toString()
-                + " @" + funcName
-                + "("
-                + ")\n";
-        node.data.dimension = 0;
+        node.data.irValue = builder.call(module.getFunction(funcName), List.of());
     }
 
     /**
@@ -984,41 +670,15 @@ public class Generator {
      */
     private void visitSignValUE(TreeNode<NodeData> node) {
         visitUnaryExpr(node.getChildAt(1));
-        if (analyzer.curBlockId > 0)
-            node.data.value = "%" + (regId++);
+        Value value = node.getChildAt(1).data.irValue;
         String opera = node.getChildAt(0).getChildAt(0).data.value;
         switch (opera) {
-            case "+", "-" -> {
-                if (analyzer.curBlockId > 0)
-                    product += node.data.value + " = "
-                            + flagOfOpera(opera)
-                            + " i32 0, "
-                            + node.getChildAt(1).data.value + "\n";
-                // 计算实际值
-                Integer v = node.getChildAt(1).data.intValue;
-                if (v != null) {
-                    if (opera.equals("+"))
-                        node.data.intValue = node.getChildAt(1).data.intValue;
-                    else node.data.intValue = - node.getChildAt(1).data.intValue;
-                }
-
-            }
-            case "!" -> {
-                product += node.data.value + " = icmp eq i32 0, "
-                        + node.getChildAt(1).data.value + "\n";
-                String newValue = "%" + (regId++);
-                product += newValue + " = zext i1 "
-                        + node.data.value
-                        + " to i32\n";
-                node.data.value = newValue;
-            }
+            case "+", "-" -> node.data.irValue = builder.binary(opOfOpera(opera), ConstantInt.ZERO, value);
+            case "!" -> node.data.irValue = builder.zext(builder.icmp(Cond.EQ, ConstantInt.ZERO, value));
         }
-        node.data.dimension = 0;
     }
 
     private void visitUnaryExpr(TreeNode<NodeData> node) {
-        if (node.children.size() >= 3 && !analyzer.isFuncCallValid(node))
-            error();
         switch (node.children.size()) {
             case 1 -> visitPrimUE(node);
             case 2 -> visitSignValUE(node);
@@ -1031,201 +691,121 @@ public class Generator {
         int childCnt = node.children.size();
         if (childCnt == 1) {
             if (node.getChildAt(0).data.name.equals("Number")) {
-                node.data.value = node.getChildAt(0).data.value;
-                node.data.intValue = Integer.parseInt(node.data.value);
-                node.data.dimension = 0;
+                node.data.irValue = ConstantInt.get(node.data.intValue);
             } else if (node.getChildAt(0).data.name.equals("Lval")) {
                 visit(node.getChildAt(0));
-                node.data.value = node.getChildAt(0).data.value;
-                node.data.intValue = node.getChildAt(0).data.intValue;
-                node.data.dimension = node.getChildAt(0).data.dimension;
+                node.data.irValue = node.getChildAt(0).data.irValue;
             }
         } else {
             visit(node.getChildAt(1));
-            node.data.value = node.getChildAt(1).data.value;
-            node.data.intValue = node.getChildAt(1).data.intValue;
-            node.data.dimension = node.getChildAt(1).data.dimension;
+            node.data.irValue = node.getChildAt(1).data.irValue;
         }
     }
 
     private void visitFuncRParams(TreeNode<NodeData> node) {
-        int childCnt = node.children.size();
-        String value = "";
-        for (int i = 0; i < childCnt; i += 2) {
-            if (i >= 1) value += ",";
+        for (int i = 0; i < node.children.size(); i += 2)
             visit(node.getChildAt(i));
-            value += analyzer.funcRParamType(node.getChildAt(i)) + " " + node.getChildAt(i).data.value;
-        }
-        node.data.value = value;
-    }
-
-    private void visitNoArrayRLval(TreeNode<NodeData> node) {
-        String val = node.getChildAt(0).data.value;
-        Item valItem = symTable.getItem(val);
-        // 计算值
-        if (analyzer.curBlockId == 0 || valItem.hasCerVal)
-            node.data.intValue = valItem.intValue;
-        if (analyzer.curBlockId > 0) {
-            String rLval = "%" + (regId++);
-            node.data.value = rLval;
-            product += rLval + " = load " + valItem.vType
-                    + ", " + valItem.vType + "* ";
-            if (valItem.blockId == 0)
-                product += "@" + valItem.name + "\n";
-            else
-                product += "%" + valItem.regId + "\n";
-        }
-        node.data.dimension = 0;
     }
 
     private void visitArrayLval(TreeNode<NodeData> node, boolean isRight) {
-        String ident = node.getChildAt(0).data.value;
-        Item arrayItem = symTable.getItem(ident);
+        Item arrayItem = node.data.item;
         ArrayList<Integer> _arraySize = arrayItem.arraySize;
 
-        String reg;
+        Value index;
         if (node.children.size() == 1) {
             // 一般出现在调用函数传参中
-            reg = "0";
-            node.data.dimension = _arraySize.size();
+            index = ConstantInt.ZERO;
         } else {
             visit(node.getChildAt(2));
-            reg = node.getChildAt(2).data.value;
-            int exprIdx = 5, _dimension = 0;
+            index = node.getChildAt(2).data.irValue;
+            int exprIdx = 5;
             for (int shapeIdx = 1; shapeIdx < _arraySize.size(); shapeIdx++) {
+                Value _temp = builder.binary(Op.MUL, index, ConstantInt.get(_arraySize.get(shapeIdx)));
                 if (exprIdx < node.children.size()) {
                     visit(node.getChildAt(exprIdx));
-                    String _tempReg = "%" + (regId++);
-                    product += _tempReg + " = mul i32 " + reg + ", " + _arraySize.get(shapeIdx) + "\n";
-                    reg = "%" + (regId++);
-                    product += reg + " = add i32 " + _tempReg + ", " + node.getChildAt(exprIdx).data.value + "\n";
+                    index = builder.binary(Op.ADD, _temp, node.getChildAt(exprIdx).data.irValue);
                 } else {
-                    _dimension += 1;
-                    String _tempReg = "%" + (regId++);
-                    product += _tempReg + " = mul i32 " + reg + ", " + _arraySize.get(shapeIdx) + "\n";
-                    reg = "%" + (regId++);
-                    product += reg + " = add i32 " + _tempReg + ", 0" + "\n";
+                    index = builder.binary(Op.ADD, _temp, ConstantInt.ZERO);
                 }
                 exprIdx += 3;
             }
-            node.data.dimension = _dimension;
         }
 
-        String _arrayPointer;
-        int _allSize = getAllSize(_arraySize);
-        if (arrayItem.blockId == 0) {
-            _arrayPointer = "%" + (regId++);
-            product += _arrayPointer + " = getelementptr [" + _allSize + " x i32], ["
-                    + _allSize + " x i32]* @" + arrayItem.name + ", i32 0, i32 " + reg + "\n";
+        Value _arrayPointer;
+        if (arrayItem.iType == Item.IdentType.PARAM) {
+            Value _array = builder.load(arrayItem.irValue);
+            _arrayPointer = builder.gep(_array, index);
         } else {
-            if (arrayItem.iType == Item.IdentType.PARAM) {
-                String _regArray = "%" + (regId++);
-                product += _regArray + " = load i32*, i32** %" + arrayItem.regId + "\n";
-                _arrayPointer = "%" + (regId++);
-                product += _arrayPointer + " = getelementptr i32, i32* " + _regArray + ", i32 " + reg + "\n";
-            } else {
-                _arrayPointer = "%" + (regId++);
-                product += _arrayPointer + " = getelementptr [" + _allSize + " x i32], ["
-                        + _allSize + " x i32]* %" + arrayItem.regId + ", i32 0, i32 " + reg + "\n";
-            }
+            _arrayPointer = builder.gep(arrayItem.irValue, ConstantInt.ZERO, index);
         }
-        node.data.value = _arrayPointer;
-
-        // Lval在右侧且不为函数传参，或者，若其为函数传参但作为Int被调用时，加load
-        if ((isRight && !analyzer.belFuncRParams(node)) ||
-                (analyzer.belFuncRParams(node) && analyzer.arrayLvalType(node) == Item.ValueType.INT)) {
-            String _rReg = "%" + (regId++);
-            product += _rReg + " = load i32, i32* " + _arrayPointer + "\n";
-            node.data.value = _rReg;
+        node.data.irValue = _arrayPointer;
+
+        // Lval在右侧且取到单个元素时加load，未取到元素的数组只作为函数实参传递地址
+        if (isRight && node.data.dimension == 0) {
+            node.data.irValue = builder.load(_arrayPointer);
         }
     }
 
     private void visitLval(TreeNode<NodeData> node) {
-        Item _identItem = symTable.getItem(node.getChildAt(0).data.value);
+        Item _identItem = node.data.item;
+        boolean isRight = !node.parent.data.name.equals("Stmt");
 
         if (_identItem.vType == Item.ValueType.ARRAY) {
-            if (!analyzer.isArrayLvalValid(node))
-                error();
-            if (node.parent.data.name.equals("Stmt")) {
-                // Stmt -> Lval = Exp ; --- Lval -> Ident {'[' Exp ']'}
-                visitArrayLval(node, false);
-            } else {
-                visitArrayLval(node, true);
-            }
+            // Stmt -> Lval = Exp ; --- Lval -> Ident {'[' Exp ']'}
+            visitArrayLval(node, isRight);
+        } else if (isRight) {
+            node.data.irValue = builder.load(_identItem.irValue);
         } else {
-            if (!analyzer.isNoArrayLvalValid(node)) error();
-            if (node.parent.data.name.equals("Stmt")) {
-                // Stmt -> Lval = Exp ; --- Lval -> Ident
-                if (_identItem.blockId == 0)
-                    node.data.value = "@" + _identItem.name;
-                else
-                    node.data.value = "%" + _identItem.regId;
-            } else {
-                visitNoArrayRLval(node);
-            }
+            // Stmt -> Lval = Exp ; --- Lval -> Ident
+            node.data.irValue = _identItem.irValue;
         }
     }
 
-
     /**
-     * 将运算符转换为llvm标识
+     * 符号表中的值类型对应的 IR 类型
      *
-     * @param opera 运算符
-     * @return llvm运算符
+     * @param vType 值类型
+     * @return IR 类型
      */
-    private String flagOfOpera(String opera) {
-        return switch (opera) {
-            case "-" -> "sub";
-            case "+" -> "add";
-            case "*" -> "mul";
-            case "/" -> "sdiv";
-            case "%" -> "srem";
-            case "<" -> "slt";
-            case ">" -> "sgt";
-            case "<=" -> "sle";
-            case ">=" -> "sge";
-            case "==" -> "eq";
-            case "!=" -> "ne";
-            case "&&" -> "and";
-            case "||" -> "or";
-            default -> "error";
+    private Type irType(Item.ValueType vType) {
+        return switch (vType) {
+            case INT -> Type.I32;
+            case ARRAY -> Type.I32_PTR;
+            default -> Type.VOID;
         };
     }
 
     /**
-     * 判断product字符串前length个字符的子串是否以ret结束
+     * 将算术运算符转换为 IR 指令
      *
-     * @param length 前length个字符
-     * @return 是否以ret结束
-     */
-    private boolean hasRet(int length) {
-        String[] array = product.substring(0,length).split("\n");
-        return array[array.length-1].startsWith("ret");
-    }
-
-    /**
-     * 判断product字符串是否以ret结束
-     *
-     * @return 是否以ret结束
+     * @param opera 运算符
+     * @return 指令类型
      */
-    private boolean hasRet() {
-        String[] array = product.split("\n");
-        return array[array.length-1].startsWith("ret");
+    private Op opOfOpera(String opera) {
+        return switch (opera) {
+            case "-" -> Op.SUB;
+            case "+" -> Op.ADD;
+            case "*" -> Op.MUL;
+            case "/" -> Op.SDIV;
+            default -> Op.SREM;
+        };
     }
 
     /**
-     * 向 product 的 pos 位置插入 content
+     * 将比较运算符转换为 icmp 条件
      *
-     * @param pos product位置
-     * @param content 字符串内容
+     * @param opera 运算符
+     * @return 比较条件
      */
-    private void insRecord(int pos, String content) {
-        StringBuilder buffer = new StringBuilder(product);
-        product = buffer.insert(pos, content).toString();
-    }
-
-    private void repRecord(String src, String target) {
-        product = product.replace(src, target);
+    private Cond condOfOpera(String opera) {
+        return switch (opera) {
+            case "<" -> Cond.SLT;
+            case ">" -> Cond.SGT;
+            case "<=" -> Cond.SLE;
+            case ">=" -> Cond.SGE;
+            case "==" -> Cond.EQ;
+            default -> Cond.NE;
+        };
     }
 
 }
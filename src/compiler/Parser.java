@@ -1,13 +1,20 @@
 package compiler;
 
+import compiler.ir.Module;
+import compiler.ir.pass.DCE;
+import compiler.ir.pass.GVN;
+import compiler.ir.pass.LICM;
+import compiler.ir.pass.Mem2Reg;
+import compiler.ir.pass.PassManager;
+import compiler.ir.pass.SCCP;
 import compiler.lexer.Scanner;
-import compiler.lexer.Token;
+import compiler.lexer.TokenStream;
 import compiler.parser.Descender;
 import compiler.parser.ast.NodeData;
 import compiler.parser.ast.TreeNode;
-import compiler.semantics.Analyzer;
+import compiler.semantics.Checker;
 
-import java.util.ArrayList;
+import java.io.PrintWriter;
 
 public class Parser {
 
@@ -22,54 +29,58 @@ public class Parser {
     }
 
     /**
-     * 生成 tokens
+     * 输出 tokens
      *
-     * @return tokens信息字符串
+     * @param out 输出目标
      */
-    public String dumpTokens() {
+    public void dumpTokens(PrintWriter out) {
         Scanner scanner = new Scanner(src);
-        return scanner.getTokens();
+        scanner.printTokens(out);
     }
 
     /**
-     * 生成 AST 语法树
+     * 输出 AST 语法树
      *
-     * @return AST字符串形式
+     * @param out 输出目标
      */
-    public String dumpAST() {
-        Scanner scanner = new Scanner(src);
-        ArrayList<Token> tokens = scanner.dumpTokens();
-        tokens.add(new Token());
-        Descender descender = new Descender(tokens);
-        return descender.buildAST().getTree();
+    public void dumpAST(PrintWriter out) {
+        Descender descender = new Descender(new TokenStream(new Scanner(src)));
+        descender.buildAST().printTree(out);
     }
 
     /**
-     * 生成符号表
+     * 输出符号表
      *
-     * @return 符号表字符串形式
+     * @param out 输出目标
      */
-    public String dumpSymTable() {
-        Scanner scanner = new Scanner(src);
-        ArrayList<Token> tokens = scanner.dumpTokens();
-        tokens.add(new Token());
-        Descender descender = new Descender(tokens);
+    public void dumpSymTable(PrintWriter out) {
+        Descender descender = new Descender(new TokenStream(new Scanner(src)));
         TreeNode<NodeData> ast = descender.buildAST();
-        Generator generator = new Generator(ast);
-        generator.generate();
-        return generator.getSymTable().toString();
+        Checker checker = new Checker(ast);
+        checker.check();
+        out.append(checker.getSymTable().toString());
     }
 
-
-    public String dumpLLVM() {
-        Scanner scanner = new Scanner(src);
-        ArrayList<Token> tokens = scanner.dumpTokens();
-        tokens.add(new Token());
-        Descender descender = new Descender(tokens);
+    /**
+     * 输出优化后的 llvm
+     *
+     * @param out 输出目标
+     */
+    public void dumpLLVM(PrintWriter out) {
+        Descender descender = new Descender(new TokenStream(new Scanner(src)));
         TreeNode<NodeData> ast = descender.buildAST();
+        new Checker(ast).check();
         Generator generator = new Generator(ast);
-        Optimizer optimizer = new Optimizer(generator.generate());
-        return optimizer.optim();
+        Module module = generator.generate();
+        new PassManager()
+                .add(new Mem2Reg())
+                .add(new SCCP())
+                .add(new GVN())
+                .add(new LICM())
+                .add(new GVN())
+                .add(new DCE())
+                .run(module);
+        module.print(out);
     }
 
 }
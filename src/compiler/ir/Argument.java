@@ -0,0 +1,14 @@
+package compiler.ir;
+
+/**
+ * 函数形参
+ */
+public class Argument extends Value {
+
+    public final Function parent;
+
+    public Argument(Type type, Function parent) {
+        super(type);
+        this.parent = parent;
+    }
+}
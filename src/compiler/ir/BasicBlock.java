@@ -0,0 +1,79 @@
+package compiler.ir;
+
+import java.util.ArrayList;
+
+/**
+ * 基本块：指令序列，以唯一的终结指令结束
+ */
+public class BasicBlock extends Value {
+
+    public Function parent;
+    public final ArrayList<Instruction> instructions = new ArrayList<>();
+    public final ArrayList<BasicBlock> predecessors = new ArrayList<>();
+    public final ArrayList<BasicBlock> successors = new ArrayList<>();
+
+    public BasicBlock(Function parent) {
+        super(Type.LABEL);
+        this.parent = parent;
+    }
+
+    /**
+     * 基本块是否已以终结指令结束
+     *
+     * @return 是否已终结
+     */
+    public boolean isTerminated() {
+        return !instructions.isEmpty() && instructions.get(instructions.size()-1).isTerminator();
+    }
+
+    /**
+     * 获取终结指令
+     *
+     * @return 终结指令，没有时返回空
+     */
+    public Instruction getTerminator() {
+        return isTerminated() ? instructions.get(instructions.size()-1) : null;
+    }
+
+    /**
+     * 在基本块末尾添加指令
+     *
+     * @param inst 指令
+     */
+    public void append(Instruction inst) {
+        inst.parent = this;
+        instructions.add(inst);
+    }
+
+    /**
+     * 在基本块第 index 条指令前插入指令
+     *
+     * @param index 位置
+     * @param inst 指令
+     */
+    public void insert(int index, Instruction inst) {
+        inst.parent = this;
+        instructions.add(index, inst);
+    }
+
+    /**
+     * 在终结指令之前插入指令
+     *
+     * @param inst 指令
+     */
+    public void insertBeforeTerminator(Instruction inst) {
+        insert(isTerminated() ? instructions.size()-1 : instructions.size(), inst);
+    }
+
+    /**
+     * 基本块开头 phi 指令的个数
+     *
+     * @return phi 个数
+     */
+    public int getPhiCount() {
+        int cnt = 0;
+        while (cnt < instructions.size() && instructions.get(cnt).op == Instruction.Op.PHI)
+            cnt++;
+        return cnt;
+    }
+}
@@ -0,0 +1,45 @@
+package compiler.ir;
+
+/**
+ * 整数常量
+ */
+public class ConstantInt extends Value {
+
+    public final int value;
+
+    public static final ConstantInt ZERO = new ConstantInt(Type.I32, 0);
+    public static final ConstantInt TRUE = new ConstantInt(Type.I1, 1);
+    public static final ConstantInt FALSE = new ConstantInt(Type.I1, 0);
+
+    private ConstantInt(Type type, int value) {
+        super(type);
+        this.value = value;
+    }
+
+    /**
+     * 获取 i32 常量
+     *
+     * @param value 常量值
+     * @return 常量
+     */
+    public static ConstantInt get(int value) {
+        return value == 0 ? ZERO : new ConstantInt(Type.I32, value);
+    }
+
+    /**
+     * 获取 i1 常量
+     *
+     * @param value 真值
+     * @return 常量
+     */
+    public static ConstantInt get(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.I1)
+            return value != 0 ? "true" : "false";
+        return String.valueOf(value);
+    }
+}
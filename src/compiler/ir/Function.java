@@ -0,0 +1,109 @@
+package compiler.ir;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * 函数：形参与基本块列表，第一个基本块为入口；没有基本块的函数为外部声明
+ */
+public class Function extends Value {
+
+    public final Type returnType;
+    public final ArrayList<Argument> arguments = new ArrayList<>();
+    public final ArrayList<BasicBlock> blocks = new ArrayList<>();
+
+    public Function(String name, Type returnType, Type... paramTypes) {
+        super(returnType, name);
+        this.returnType = returnType;
+        for (Type paramType : paramTypes)
+            addArgument(paramType);
+    }
+
+    /**
+     * 追加一个形参
+     *
+     * @param type 形参类型
+     * @return 新形参
+     */
+    public Argument addArgument(Type type) {
+        Argument argument = new Argument(type, this);
+        arguments.add(argument);
+        return argument;
+    }
+
+    public boolean isDeclaration() {
+        return blocks.isEmpty();
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * 新建基本块并追加到函数末尾
+     *
+     * @return 新基本块
+     */
+    public BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(this);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * 根据各基本块的终结指令重新计算前驱与后继
+     */
+    public void buildCFG() {
+        for (BasicBlock block : blocks) {
+            block.predecessors.clear();
+            block.successors.clear();
+        }
+        for (BasicBlock block : blocks) {
+            Instruction term = block.getTerminator();
+            if (term == null) continue;
+            for (BasicBlock succ : term.getSuccessors()) {
+                if (!block.successors.contains(succ))
+                    block.successors.add(succ);
+                if (!succ.predecessors.contains(block))
+                    succ.predecessors.add(block);
+            }
+        }
+    }
+
+    /**
+     * 删除从入口不可达的基本块，并去掉可达基本块中 phi 来自它们的来源
+     *
+     * @return 是否删除了基本块
+     */
+    public boolean removeUnreachableBlocks() {
+        HashSet<BasicBlock> reachable = new HashSet<>();
+        ArrayList<BasicBlock> worklist = new ArrayList<>();
+        reachable.add(getEntry());
+        worklist.add(getEntry());
+        while (!worklist.isEmpty()) {
+            BasicBlock block = worklist.remove(worklist.size()-1);
+            for (BasicBlock succ : block.successors)
+                if (reachable.add(succ))
+                    worklist.add(succ);
+        }
+        if (reachable.size() == blocks.size()) return false;
+        for (BasicBlock block : blocks) {
+            if (reachable.contains(block)) continue;
+            for (BasicBlock succ : block.successors) {
+                if (!reachable.contains(succ)) continue;
+                for (int i = 0; i < succ.getPhiCount(); i++)
+                    succ.instructions.get(i).removeIncoming(block);
+            }
+            for (Instruction inst : block.instructions)
+                inst.dropOperands();
+        }
+        blocks.removeIf(block -> !reachable.contains(block));
+        buildCFG();
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + name;
+    }
+}
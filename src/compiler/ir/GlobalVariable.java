@@ -0,0 +1,23 @@
+package compiler.ir;
+
+/**
+ * 全局变量，其值为指向存储内容的指针
+ */
+public class GlobalVariable extends Value {
+
+    public final boolean isConstant;    /* 是否为 constant 声明 */
+    public final Type contentType;      /* 存储内容的类型：i32 或 [n x i32] */
+    public int[] init;                  /* 初始值，为空时全部初始化为 0 */
+
+    public GlobalVariable(String name, Type contentType, boolean isConstant, int[] init) {
+        super(Type.pointer(contentType), name);
+        this.contentType = contentType;
+        this.isConstant = isConstant;
+        this.init = init;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + name;
+    }
+}
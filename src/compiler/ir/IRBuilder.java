@@ -0,0 +1,142 @@
+package compiler.ir;
+
+import compiler.ir.Instruction.Cond;
+import compiler.ir.Instruction.Op;
+
+import java.util.List;
+
+/**
+ * 在当前基本块末尾构造指令
+ */
+public class IRBuilder {
+
+    private Function function;      /* 当前函数 */
+    private BasicBlock block;       /* 当前插入的基本块 */
+
+    /**
+     * 开始生成函数体，创建入口基本块
+     *
+     * @param function 函数
+     */
+    public void setFunction(Function function) {
+        this.function = function;
+        this.block = function.newBlock();
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public BasicBlock getBlock() {
+        return block;
+    }
+
+    public void setBlock(BasicBlock block) {
+        this.block = block;
+    }
+
+    /**
+     * 在函数末尾新建基本块并作为当前插入点
+     *
+     * @return 新基本块
+     */
+    public BasicBlock newBlock() {
+        block = function.newBlock();
+        return block;
+    }
+
+    /**
+     * 将指令加入当前基本块；当前基本块已终结时，后续指令不可达，放入新的基本块
+     *
+     * @param inst 指令
+     * @return 该指令
+     */
+    private Instruction insert(Instruction inst) {
+        if (block.isTerminated())
+            newBlock();
+        block.append(inst);
+        return inst;
+    }
+
+    public Instruction binary(Op op, Value lhs, Value rhs) {
+        return insert(new Instruction(op, Type.I32, lhs, rhs));
+    }
+
+    public Instruction icmp(Cond cond, Value lhs, Value rhs) {
+        Instruction inst = new Instruction(Op.ICMP, Type.I1, lhs, rhs);
+        inst.cond = cond;
+        return insert(inst);
+    }
+
+    public Instruction zext(Value value) {
+        return insert(new Instruction(Op.ZEXT, Type.I32, value));
+    }
+
+    /**
+     * 在入口基本块开头分配栈空间，保证每个局部变量只分配一次
+     *
+     * @param type 分配的类型
+     * @return alloca 指令
+     */
+    public Instruction alloca(Type type) {
+        Instruction inst = new Instruction(Op.ALLOCA, Type.pointer(type));
+        BasicBlock entry = function.getEntry();
+        int pos = 0;
+        while (pos < entry.instructions.size() && entry.instructions.get(pos).op == Op.ALLOCA)
+            pos++;
+        entry.insert(pos, inst);
+        return inst;
+    }
+
+    public Instruction load(Value pointer) {
+        return insert(new Instruction(Op.LOAD, pointer.type.elemType, pointer));
+    }
+
+    public Instruction store(Value value, Value pointer) {
+        return insert(new Instruction(Op.STORE, Type.VOID, value, pointer));
+    }
+
+    public Instruction gep(Value pointer, Value... indices) {
+        Instruction inst = new Instruction(Op.GEP, Type.I32_PTR, pointer);
+        for (Value index : indices)
+            inst.addOperand(index);
+        return insert(inst);
+    }
+
+    public Instruction call(Function callee, List<Value> args) {
+        Instruction inst = new Instruction(Op.CALL, callee.returnType, callee);
+        for (Value arg : args)
+            inst.addOperand(arg);
+        return insert(inst);
+    }
+
+    /**
+     * 无条件跳转，目标可为空，待回填
+     *
+     * @param target 目标基本块
+     * @return br 指令
+     */
+    public Instruction br(BasicBlock target) {
+        return insert(new Instruction(Op.BR, Type.VOID, target));
+    }
+
+    /**
+     * 条件跳转，目标可为空，待回填
+     *
+     * @param cond i1 条件
+     * @param trueBlock 条件为真时的目标
+     * @param falseBlock 条件为假时的目标
+     * @return br 指令
+     */
+    public Instruction condBr(Value cond, BasicBlock trueBlock, BasicBlock falseBlock) {
+        return insert(new Instruction(Op.BR, Type.VOID, cond, trueBlock, falseBlock));
+    }
+
+    public Instruction ret(Value value) {
+        return insert(new Instruction(Op.RET, Type.VOID, value));
+    }
+
+    public Instruction retVoid() {
+        return insert(new Instruction(Op.RET, Type.VOID));
+    }
+}
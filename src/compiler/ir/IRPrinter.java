@@ -0,0 +1,188 @@
+package compiler.ir;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+
+/**
+ * 将 IR 序列化为 LLVM IR 文本，局部值与基本块在输出时统一编号；
+ * 每输出完一个全局对象或函数就写出，缓存的文本不超过一个函数
+ */
+public class IRPrinter {
+
+    private final PrintWriter writer;                           /* 输出目标 */
+    private final StringBuilder out = new StringBuilder();      /* 尚未写出的文本 */
+    private final HashMap<Value, Integer> slots = new HashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param writer 输出目标
+     */
+    public IRPrinter(PrintWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 输出整个编译单元
+     *
+     * @param module 编译单元
+     */
+    public void print(Module module) {
+        for (Function function : module.functions)
+            if (function.isDeclaration())
+                printDeclaration(function);
+        for (GlobalVariable global : module.globals)
+            printGlobal(global);
+        flush();
+        for (Function function : module.functions)
+            if (!function.isDeclaration()) {
+                printFunction(function);
+                flush();
+            }
+    }
+
+    private void flush() {
+        writer.append(out);
+        out.setLength(0);
+    }
+
+    private void printDeclaration(Function function) {
+        out.append("declare ").append(function.returnType).append(" @").append(function.name).append("(");
+        for (int i = 0; i < function.arguments.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append(function.arguments.get(i).type);
+        }
+        out.append(")\n");
+    }
+
+    private void printGlobal(GlobalVariable global) {
+        out.append("@").append(global.name).append(" = dso_local ")
+                .append(global.isConstant ? "constant " : "global ")
+                .append(global.contentType).append(" ");
+        if (!global.contentType.isArray()) {
+            out.append(global.init == null ? 0 : global.init[0]);
+        } else if (global.init == null) {
+            out.append("zeroinitializer");
+        } else {
+            out.append("[");
+            for (int i = 0; i < global.init.length; i++) {
+                if (i > 0) out.append(", ");
+                out.append("i32 ").append(global.init[i]);
+            }
+            out.append("]");
+        }
+        out.append("\n");
+    }
+
+    /**
+     * 为函数内的形参、基本块和有返回值的指令按顺序编号
+     *
+     * @param function 函数
+     */
+    private void numbering(Function function) {
+        slots.clear();
+        int slot = 0;
+        for (Argument argument : function.arguments)
+            slots.put(argument, slot++);
+        for (BasicBlock block : function.blocks) {
+            slots.put(block, slot++);
+            for (Instruction inst : block.instructions)
+                if (inst.type != Type.VOID)
+                    slots.put(inst, slot++);
+        }
+    }
+
+    private void printFunction(Function function) {
+        numbering(function);
+        out.append("define dso_local ").append(function.returnType).append(" @").append(function.name).append("(");
+        for (int i = 0; i < function.arguments.size(); i++) {
+            if (i > 0) out.append(", ");
+            Argument argument = function.arguments.get(i);
+            out.append(argument.type).append(" ").append(ref(argument));
+        }
+        out.append(") {\n");
+        for (BasicBlock block : function.blocks) {
+            if (block != function.getEntry())
+                out.append("\n").append(slots.get(block)).append(":\n");
+            for (Instruction inst : block.instructions)
+                printInstruction(inst);
+        }
+        out.append("}\n\n");
+    }
+
+    /**
+     * 操作数的引用形式
+     *
+     * @param value 操作数
+     * @return 常量值、@全局名或 %编号
+     */
+    private String ref(Value value) {
+        if (value instanceof ConstantInt || value instanceof GlobalVariable || value instanceof Function)
+            return value.toString();
+        return "%" + slots.get(value);
+    }
+
+    /**
+     * 带类型的操作数
+     *
+     * @param value 操作数
+     * @return 类型与引用
+     */
+    private String typed(Value value) {
+        return value.type + " " + ref(value);
+    }
+
+    private void printInstruction(Instruction inst) {
+        if (inst.type != Type.VOID)
+            out.append(ref(inst)).append(" = ");
+        switch (inst.op) {
+            case ADD, SUB, MUL, SDIV, SREM -> out.append(inst.op.text).append(" ")
+                    .append(typed(inst.getOperand(0))).append(", ").append(ref(inst.getOperand(1)));
+            case ICMP -> out.append("icmp ").append(inst.cond.text).append(" ")
+                    .append(typed(inst.getOperand(0))).append(", ").append(ref(inst.getOperand(1)));
+            case ZEXT -> out.append("zext ").append(typed(inst.getOperand(0))).append(" to ").append(inst.type);
+            case ALLOCA -> out.append("alloca ").append(inst.type.elemType);
+            case LOAD -> out.append("load ").append(inst.type).append(", ").append(typed(inst.getOperand(0)));
+            case STORE -> out.append("store ").append(typed(inst.getOperand(0)))
+                    .append(", ").append(typed(inst.getOperand(1)));
+            case GEP -> {
+                Value pointer = inst.getOperand(0);
+                out.append("getelementptr ").append(pointer.type.elemType).append(", ").append(typed(pointer));
+                for (int i = 1; i < inst.operands.size(); i++)
+                    out.append(", ").append(typed(inst.getOperand(i)));
+            }
+            case CALL -> {
+                Function callee = (Function) inst.getOperand(0);
+                out.append("call ").append(callee.returnType).append(" @").append(callee.name).append("(");
+                for (int i = 1; i < inst.operands.size(); i++) {
+                    if (i > 1) out.append(", ");
+                    out.append(typed(inst.getOperand(i)));
+                }
+                out.append(")");
+            }
+            case PHI -> {
+                out.append("phi ").append(inst.type).append(" ");
+                for (int i = 0; i < inst.getIncomingCount(); i++) {
+                    if (i > 0) out.append(", ");
+                    out.append("[ ").append(ref(inst.getIncomingValue(i)))
+                            .append(", ").append(ref(inst.getIncomingBlock(i))).append(" ]");
+                }
+            }
+            case BR -> {
+                if (inst.operands.size() == 1)
+                    out.append("br label ").append(ref(inst.getOperand(0)));
+                else
+                    out.append("br ").append(typed(inst.getOperand(0)))
+                            .append(", label ").append(ref(inst.getOperand(1)))
+                            .append(", label ").append(ref(inst.getOperand(2)));
+            }
+            case RET -> {
+                if (inst.operands.isEmpty())
+                    out.append("ret void");
+                else
+                    out.append("ret ").append(typed(inst.getOperand(0)));
+            }
+        }
+        out.append("\n");
+    }
+}
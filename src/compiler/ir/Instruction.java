@@ -0,0 +1,181 @@
+package compiler.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * IR 指令，操作数与其使用者之间维护 def-use 链
+ */
+public class Instruction extends Value {
+
+    public enum Op {
+        ADD("add"), SUB("sub"), MUL("mul"), SDIV("sdiv"), SREM("srem"),
+        ICMP("icmp"), ZEXT("zext"),
+        ALLOCA("alloca"), LOAD("load"), STORE("store"), GEP("getelementptr"),
+        CALL("call"), PHI("phi"), BR("br"), RET("ret");
+
+        public final String text;
+
+        Op(String text) {
+            this.text = text;
+        }
+
+        public boolean isBinary() {
+            return this == ADD || this == SUB || this == MUL || this == SDIV || this == SREM;
+        }
+
+        public boolean isTerminator() {
+            return this == BR || this == RET;
+        }
+    }
+
+    /**
+     * icmp 的比较条件
+     */
+    public enum Cond {
+        EQ("eq"), NE("ne"), SLT("slt"), SGT("sgt"), SLE("sle"), SGE("sge");
+
+        public final String text;
+
+        Cond(String text) {
+            this.text = text;
+        }
+    }
+
+    public final Op op;
+    public Cond cond;                                       /* 仅 icmp 使用 */
+    public final ArrayList<Value> operands = new ArrayList<>();
+    public BasicBlock parent;
+
+    public Instruction(Op op, Type type, Value... operands) {
+        super(type);
+        this.op = op;
+        for (Value operand : operands)
+            addOperand(operand);
+    }
+
+    public Value getOperand(int index) {
+        return operands.get(index);
+    }
+
+    /**
+     * 设置第 index 个操作数，同时更新新旧操作数的使用者
+     *
+     * @param index 操作数序号
+     * @param value 新操作数，可为空（待回填）
+     */
+    public void setOperand(int index, Value value) {
+        Value old = operands.get(index);
+        untrack(old);
+        operands.set(index, value);
+        track(value);
+    }
+
+    public void addOperand(Value value) {
+        operands.add(value);
+        track(value);
+    }
+
+    /**
+     * 删除第 index 个操作数
+     *
+     * @param index 操作数序号
+     */
+    public void removeOperand(int index) {
+        untrack(operands.remove(index));
+    }
+
+    /**
+     * 清除所有操作数的使用记录
+     */
+    public void dropOperands() {
+        for (Value operand : operands)
+            untrack(operand);
+        operands.clear();
+    }
+
+    /**
+     * 常量可被任意共享，不记录其使用者
+     */
+    private void track(Value value) {
+        if (value != null && !(value instanceof ConstantInt))
+            value.users.add(this);
+    }
+
+    private void untrack(Value value) {
+        if (value != null && !(value instanceof ConstantInt))
+            value.users.remove(this);
+    }
+
+    /**
+     * 从所在基本块中删除该指令
+     */
+    public void eraseFromParent() {
+        dropOperands();
+        if (parent != null)
+            parent.instructions.remove(this);
+        parent = null;
+    }
+
+    public boolean isTerminator() {
+        return op.isTerminator();
+    }
+
+    /**
+     * 指令是否有除结果值以外的作用，这类指令不能因无人使用而删除
+     *
+     * @return 是否有副作用
+     */
+    public boolean hasSideEffect() {
+        return op == Op.STORE || op == Op.CALL || op.isTerminator();
+    }
+
+    /**
+     * 条件跳转与无条件跳转的目标基本块
+     *
+     * @return 后继基本块列表
+     */
+    public List<BasicBlock> getSuccessors() {
+        if (op != Op.BR) return List.of();
+        if (operands.size() == 1)
+            return List.of((BasicBlock) operands.get(0));
+        return Arrays.asList((BasicBlock) operands.get(1), (BasicBlock) operands.get(2));
+    }
+
+    /**
+     * phi 指令增加一个来源
+     *
+     * @param value 来源值
+     * @param block 来源基本块
+     */
+    public void addIncoming(Value value, BasicBlock block) {
+        addOperand(value);
+        addOperand(block);
+    }
+
+    public int getIncomingCount() {
+        return operands.size() / 2;
+    }
+
+    public Value getIncomingValue(int index) {
+        return operands.get(2 * index);
+    }
+
+    public BasicBlock getIncomingBlock(int index) {
+        return (BasicBlock) operands.get(2 * index + 1);
+    }
+
+    /**
+     * phi 指令删除来自 block 的来源
+     *
+     * @param block 来源基本块
+     */
+    public void removeIncoming(BasicBlock block) {
+        for (int i = getIncomingCount() - 1; i >= 0; i--)
+            if (getIncomingBlock(i) == block) {
+                removeOperand(2 * i + 1);
+                removeOperand(2 * i);
+            }
+    }
+}
@@ -0,0 +1,47 @@
+package compiler.ir;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 编译单元：全局变量与函数
+ */
+public class Module {
+
+    public final ArrayList<GlobalVariable> globals = new ArrayList<>();
+    public final ArrayList<Function> functions = new ArrayList<>();
+    private final HashMap<String, Function> functionMap = new HashMap<>();
+
+    public void addGlobal(GlobalVariable global) {
+        globals.add(global);
+    }
+
+    public void addFunction(Function function) {
+        functions.add(function);
+        functionMap.put(function.name, function);
+    }
+
+    public Function getFunction(String name) {
+        return functionMap.get(name);
+    }
+
+    /**
+     * 将 llvm 形式写入输出
+     *
+     * @param writer 输出目标
+     */
+    public void print(PrintWriter writer) {
+        new IRPrinter(writer).print(this);
+    }
+
+    @Override
+    public String toString() {
+        StringWriter str = new StringWriter();
+        PrintWriter writer = new PrintWriter(str);
+        print(writer);
+        writer.flush();
+        return str.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package compiler.ir;
+
+import java.util.Objects;
+
+/**
+ * IR 中值的类型：void、i1、i32、label、指针与数组
+ */
+public class Type {
+
+    public enum Kind {
+        VOID, I1, I32, LABEL, POINTER, ARRAY
+    }
+
+    public final Kind kind;
+    public final Type elemType;     /* 指针或数组的元素类型 */
+    public final int length;        /* 数组长度 */
+
+    public static final Type VOID = new Type(Kind.VOID, null, 0);
+    public static final Type I1 = new Type(Kind.I1, null, 0);
+    public static final Type I32 = new Type(Kind.I32, null, 0);
+    public static final Type LABEL = new Type(Kind.LABEL, null, 0);
+    public static final Type I32_PTR = pointer(I32);
+
+    private Type(Kind kind, Type elemType, int length) {
+        this.kind = kind;
+        this.elemType = elemType;
+        this.length = length;
+    }
+
+    /**
+     * 构造指向 elemType 的指针类型
+     *
+     * @param elemType 元素类型
+     * @return 指针类型
+     */
+    public static Type pointer(Type elemType) {
+        return new Type(Kind.POINTER, elemType, 0);
+    }
+
+    /**
+     * 构造长度为 length 的数组类型
+     *
+     * @param length 数组长度
+     * @param elemType 元素类型
+     * @return 数组类型
+     */
+    public static Type array(int length, Type elemType) {
+        return new Type(Kind.ARRAY, elemType, length);
+    }
+
+    public boolean isPointer() {
+        return kind == Kind.POINTER;
+    }
+
+    public boolean isArray() {
+        return kind == Kind.ARRAY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Type)) return false;
+        Type t = (Type) o;
+        return kind == t.kind && length == t.length && Objects.equals(elemType, t.elemType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, elemType, length);
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case VOID -> "void";
+            case I1 -> "i1";
+            case I32 -> "i32";
+            case LABEL -> "label";
+            case POINTER -> elemType + "*";
+            case ARRAY -> "[" + length + " x " + elemType + "]";
+        };
+    }
+}
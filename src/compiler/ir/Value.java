@@ -0,0 +1,44 @@
+package compiler.ir;
+
+import java.util.ArrayList;
+
+/**
+ * IR 中所有值的基类，记录类型以及使用该值的指令（def-use 链）
+ */
+public abstract class Value {
+
+    public Type type;
+    public String name;                                         /* 全局名称，局部值为空 */
+    public final ArrayList<Instruction> users = new ArrayList<>();  /* 每个操作数位置记录一次 */
+
+    public Value(Type type) {
+        this.type = type;
+    }
+
+    public Value(Type type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    /**
+     * 将所有使用该值的操作数替换为 value
+     *
+     * @param value 新的值
+     */
+    public void replaceAllUsesWith(Value value) {
+        if (value == this) return;
+        for (Instruction user : new ArrayList<>(users))
+            for (int i = 0; i < user.operands.size(); i++)
+                if (user.operands.get(i) == this)
+                    user.setOperand(i, value);
+    }
+
+    /**
+     * 该值是否没有被使用
+     *
+     * @return 是否无使用者
+     */
+    public boolean hasNoUsers() {
+        return users.isEmpty();
+    }
+}
@@ -0,0 +1,205 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Value;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * 死代码删除与控制流图化简，反复执行直到不再变化：
+ * 1. 从有副作用的指令出发标记活跃指令，删除其余指令（包括互相引用的无用 phi）
+ * 2. 化简跳转：条件相同或已知的条件跳转改为无条件跳转，
+ *    合并只有唯一前驱且该前驱只有唯一后继的基本块，绕过只含一条无条件跳转的空基本块
+ * 3. 删除从入口不可达的基本块
+ */
+public class DCE implements Pass {
+
+    private final HashSet<BasicBlock> removed = new HashSet<>();    /* 本轮化简中被合并或绕过的基本块 */
+
+    @Override
+    public void run(Function function) {
+        boolean changed = true;
+        while (changed) {
+            changed = removeDeadInstructions(function);
+            changed |= simplifyCFG(function);
+            changed |= function.removeUnreachableBlocks();
+        }
+    }
+
+    /**
+     * 标记-清除：有副作用的指令活跃，活跃指令的操作数活跃
+     *
+     * @param function 函数
+     * @return 是否删除了指令
+     */
+    private boolean removeDeadInstructions(Function function) {
+        HashSet<Instruction> live = new HashSet<>();
+        ArrayList<Instruction> worklist = new ArrayList<>();
+        for (BasicBlock block : function.blocks)
+            for (Instruction inst : block.instructions)
+                if (inst.hasSideEffect() && live.add(inst))
+                    worklist.add(inst);
+        while (!worklist.isEmpty()) {
+            Instruction inst = worklist.remove(worklist.size()-1);
+            for (Value operand : inst.operands)
+                if (operand instanceof Instruction && live.add((Instruction) operand))
+                    worklist.add((Instruction) operand);
+        }
+
+        boolean changed = false;
+        for (BasicBlock block : function.blocks)
+            for (Instruction inst : block.instructions)
+                if (!live.contains(inst)) {
+                    inst.dropOperands();
+                    changed = true;
+                }
+        if (changed)
+            for (BasicBlock block : function.blocks)
+                block.instructions.removeIf(inst -> !live.contains(inst));
+        return changed;
+    }
+
+    /**
+     * 化简跳转并合并基本块，增量维护前驱与后继
+     *
+     * @param function 函数
+     * @return 是否有变化
+     */
+    private boolean simplifyCFG(Function function) {
+        removed.clear();
+        boolean changed = false;
+        for (BasicBlock block : new ArrayList<>(function.blocks)) {
+            if (removed.contains(block)) continue;
+            changed |= foldBranch(block);
+            if (block == function.getEntry()) continue;
+            if (block.predecessors.size() == 1 && mergeIntoPredecessor(block)) {
+                changed = true;
+            } else if (bypass(block)) {
+                changed = true;
+            }
+        }
+        function.blocks.removeIf(removed::contains);
+        return changed;
+    }
+
+    /**
+     * 两个目标相同或条件为常量的条件跳转改为无条件跳转
+     *
+     * @param block 基本块
+     * @return 是否改写
+     */
+    private boolean foldBranch(BasicBlock block) {
+        Instruction br = block.getTerminator();
+        if (br == null || br.op != Op.BR || br.operands.size() != 3) return false;
+        BasicBlock trueBlock = (BasicBlock) br.getOperand(1);
+        BasicBlock falseBlock = (BasicBlock) br.getOperand(2);
+        BasicBlock taken;
+        if (trueBlock == falseBlock) {
+            taken = trueBlock;
+        } else if (br.getOperand(0) instanceof ConstantInt) {
+            taken = ((ConstantInt) br.getOperand(0)).value != 0 ? trueBlock : falseBlock;
+            BasicBlock other = taken == trueBlock ? falseBlock : trueBlock;
+            for (int i = 0; i < other.getPhiCount(); i++)
+                other.instructions.get(i).removeIncoming(block);
+            block.successors.remove(other);
+            other.predecessors.remove(block);
+        } else {
+            return false;
+        }
+        br.dropOperands();
+        br.addOperand(taken);
+        return true;
+    }
+
+    /**
+     * 前驱只有这一个后继时，把基本块并入前驱
+     *
+     * @param block 只有唯一前驱的基本块
+     * @return 是否合并
+     */
+    private boolean mergeIntoPredecessor(BasicBlock block) {
+        BasicBlock pred = block.predecessors.get(0);
+        if (pred == block || pred.successors.size() != 1) return false;
+
+        // 唯一前驱的 phi 只有一个来源
+        while (block.getPhiCount() > 0) {
+            Instruction phi = block.instructions.get(0);
+            phi.replaceAllUsesWith(phi.getIncomingCount() > 0 ? phi.getIncomingValue(0) : ConstantInt.ZERO);
+            phi.eraseFromParent();
+        }
+        pred.getTerminator().eraseFromParent();
+        for (Instruction inst : block.instructions)
+            pred.append(inst);
+        block.instructions.clear();
+
+        pred.successors.clear();
+        for (BasicBlock succ : block.successors) {
+            pred.successors.add(succ);
+            succ.predecessors.set(succ.predecessors.indexOf(block), pred);
+            replaceIncomingBlock(succ, block, pred);
+        }
+        removed.add(block);
+        return true;
+    }
+
+    /**
+     * 绕过只含一条无条件跳转的基本块，让其前驱直接跳到它的后继；
+     * 后继有 phi 且某个前驱已是后继的前驱时，phi 无法区分两条边，不做处理
+     *
+     * @param block 基本块
+     * @return 是否绕过
+     */
+    private boolean bypass(BasicBlock block) {
+        if (block.instructions.size() != 1) return false;
+        Instruction br = block.instructions.get(0);
+        if (br.op != Op.BR || br.operands.size() != 1) return false;
+        BasicBlock succ = (BasicBlock) br.getOperand(0);
+        if (succ == block) return false;
+        int phiCount = succ.getPhiCount();
+        if (phiCount > 0)
+            for (BasicBlock pred : block.predecessors)
+                if (succ.predecessors.contains(pred)) return false;
+
+        for (int i = 0; i < phiCount; i++) {
+            Instruction phi = succ.instructions.get(i);
+            Value value = null;
+            for (int j = 0; j < phi.getIncomingCount(); j++)
+                if (phi.getIncomingBlock(j) == block)
+                    value = phi.getIncomingValue(j);
+            phi.removeIncoming(block);
+            for (BasicBlock pred : block.predecessors)
+                phi.addIncoming(value, pred);
+        }
+        succ.predecessors.remove(block);
+        for (BasicBlock pred : block.predecessors) {
+            Instruction term = pred.getTerminator();
+            for (int i = 0; i < term.operands.size(); i++)
+                if (term.getOperand(i) == block)
+                    term.setOperand(i, succ);
+            pred.successors.remove(block);
+            if (!pred.successors.contains(succ))
+                pred.successors.add(succ);
+            if (!succ.predecessors.contains(pred))
+                succ.predecessors.add(pred);
+        }
+        br.eraseFromParent();
+        block.predecessors.clear();
+        block.successors.clear();
+        removed.add(block);
+        return true;
+    }
+
+    private void replaceIncomingBlock(BasicBlock block, BasicBlock from, BasicBlock to) {
+        for (int i = 0; i < block.getPhiCount(); i++) {
+            Instruction phi = block.instructions.get(i);
+            for (int j = 0; j < phi.getIncomingCount(); j++)
+                if (phi.getIncomingBlock(j) == from)
+                    phi.setOperand(2 * j + 1, to);
+        }
+    }
+}
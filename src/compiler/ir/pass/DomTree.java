@@ -0,0 +1,183 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.Function;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 支配树与支配边界，只包含从入口可达的基本块
+ * 直接支配者使用 Cooper-Harvey-Kennedy 迭代算法在逆后序上求解
+ */
+public class DomTree {
+
+    private final ArrayList<BasicBlock> order = new ArrayList<>();     /* 逆后序 */
+    private final HashMap<BasicBlock, Integer> orderIdx = new HashMap<>();
+    private final HashMap<BasicBlock, BasicBlock> idom = new HashMap<>();
+    private final HashMap<BasicBlock, ArrayList<BasicBlock>> children = new HashMap<>();
+    private final HashMap<BasicBlock, ArrayList<BasicBlock>> frontier = new HashMap<>();
+    /* 支配树先序、后序编号，用于 O(1) 判断支配关系 */
+    private final HashMap<BasicBlock, Integer> preNum = new HashMap<>();
+    private final HashMap<BasicBlock, Integer> postNum = new HashMap<>();
+
+    public DomTree(Function function) {
+        computeOrder(function.getEntry());
+        computeIdom();
+        computeFrontier();
+        numbering();
+    }
+
+    /**
+     * 非递归深度优先遍历，得到可达基本块的逆后序
+     *
+     * @param entry 入口基本块
+     */
+    private void computeOrder(BasicBlock entry) {
+        ArrayList<BasicBlock> postOrder = new ArrayList<>();
+        ArrayList<BasicBlock> stack = new ArrayList<>();
+        ArrayList<Integer> next = new ArrayList<>();    /* 栈中每个基本块下一个待访问的后继 */
+        HashMap<BasicBlock, Boolean> visited = new HashMap<>();
+        stack.add(entry);
+        next.add(0);
+        visited.put(entry, true);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int i = next.get(top);
+            if (i < block.successors.size()) {
+                next.set(top, i + 1);
+                BasicBlock succ = block.successors.get(i);
+                if (visited.putIfAbsent(succ, true) == null) {
+                    stack.add(succ);
+                    next.add(0);
+                }
+            } else {
+                stack.remove(top);
+                next.remove(top);
+                postOrder.add(block);
+            }
+        }
+        for (int i = postOrder.size() - 1; i >= 0; i--) {
+            orderIdx.put(postOrder.get(i), order.size());
+            order.add(postOrder.get(i));
+        }
+    }
+
+    private void computeIdom() {
+        BasicBlock entry = order.get(0);
+        idom.put(entry, entry);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < order.size(); i++) {
+                BasicBlock block = order.get(i);
+                BasicBlock newIdom = null;
+                for (BasicBlock pred : block.predecessors) {
+                    if (!idom.containsKey(pred)) continue;
+                    newIdom = newIdom == null ? pred : intersect(pred, newIdom);
+                }
+                if (idom.get(block) != newIdom) {
+                    idom.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        }
+        for (BasicBlock block : order)
+            children.put(block, new ArrayList<>());
+        for (int i = 1; i < order.size(); i++)
+            children.get(idom.get(order.get(i))).add(order.get(i));
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (orderIdx.get(a) > orderIdx.get(b)) a = idom.get(a);
+            while (orderIdx.get(b) > orderIdx.get(a)) b = idom.get(b);
+        }
+        return a;
+    }
+
+    private void computeFrontier() {
+        for (BasicBlock block : order)
+            frontier.put(block, new ArrayList<>());
+        for (BasicBlock block : order) {
+            if (block.predecessors.size() < 2) continue;
+            for (BasicBlock pred : block.predecessors) {
+                if (!orderIdx.containsKey(pred)) continue;
+                for (BasicBlock runner = pred; runner != idom.get(block); runner = idom.get(runner)) {
+                    ArrayList<BasicBlock> df = frontier.get(runner);
+                    if (df.isEmpty() || df.get(df.size()-1) != block)
+                        df.add(block);
+                }
+            }
+        }
+    }
+
+    private void numbering() {
+        ArrayList<BasicBlock> stack = new ArrayList<>();
+        ArrayList<Integer> next = new ArrayList<>();
+        int counter = 0;
+        stack.add(order.get(0));
+        next.add(0);
+        preNum.put(order.get(0), counter++);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int i = next.get(top);
+            ArrayList<BasicBlock> kids = children.get(block);
+            if (i < kids.size()) {
+                next.set(top, i + 1);
+                preNum.put(kids.get(i), counter++);
+                stack.add(kids.get(i));
+                next.add(0);
+            } else {
+                postNum.put(block, counter++);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+    }
+
+    /**
+     * 可达基本块的逆后序，第一个为入口
+     *
+     * @return 基本块列表
+     */
+    public List<BasicBlock> getOrder() {
+        return order;
+    }
+
+    public boolean isReachable(BasicBlock block) {
+        return orderIdx.containsKey(block);
+    }
+
+    /**
+     * 直接支配者，入口的直接支配者为其自身
+     *
+     * @param block 可达基本块
+     * @return 直接支配者
+     */
+    public BasicBlock getIdom(BasicBlock block) {
+        return idom.get(block);
+    }
+
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        return children.get(block);
+    }
+
+    public List<BasicBlock> getFrontier(BasicBlock block) {
+        return frontier.get(block);
+    }
+
+    /**
+     * a 是否支配 b（每个基本块支配其自身）
+     *
+     * @param a 可达基本块
+     * @param b 可达基本块
+     * @return 是否支配
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        return preNum.get(a) <= preNum.get(b) && postNum.get(b) <= postNum.get(a);
+    }
+}
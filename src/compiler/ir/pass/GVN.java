@@ -0,0 +1,124 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * 基于支配树的全局值编号：
+ * 沿支配树先序遍历，纯运算（算术、比较、zext、getelementptr）若与某个支配它的指令
+ * 运算符和操作数都相同，则用该指令替换；
+ * 同一基本块内，地址相同且其间没有 store 与 call 的 load 也被合并
+ */
+public class GVN implements Pass {
+
+    private final IdentityHashMap<Value, Integer> ids = new IdentityHashMap<>();    /* 非常量值的编号 */
+    private final HashMap<String, Instruction> table = new HashMap<>();            /* 表达式 -> 支配的可用值 */
+    private final ArrayList<String> log = new ArrayList<>();                        /* 插入记录，离开子树时撤销 */
+
+    @Override
+    public void run(Function function) {
+        ids.clear();
+        table.clear();
+        log.clear();
+
+        DomTree domTree = new DomTree(function);
+        ArrayList<BasicBlock> stack = new ArrayList<>();
+        ArrayList<Integer> next = new ArrayList<>();
+        ArrayList<Integer> marks = new ArrayList<>();
+        BasicBlock entry = function.getEntry();
+        stack.add(entry);
+        next.add(0);
+        marks.add(0);
+        numberBlock(entry);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            int i = next.get(top);
+            List<BasicBlock> kids = domTree.getChildren(stack.get(top));
+            if (i < kids.size()) {
+                next.set(top, i + 1);
+                stack.add(kids.get(i));
+                next.add(0);
+                marks.add(log.size());
+                numberBlock(kids.get(i));
+            } else {
+                for (int mark = marks.get(top); log.size() > mark; )
+                    table.remove(log.remove(log.size()-1));
+                stack.remove(top);
+                next.remove(top);
+                marks.remove(top);
+            }
+        }
+    }
+
+    private void numberBlock(BasicBlock block) {
+        HashMap<Value, Instruction> loads = new HashMap<>();    /* 地址 -> 本块内仍然有效的 load */
+        ArrayList<Instruction> kept = new ArrayList<>(block.instructions.size());
+        for (Instruction inst : block.instructions) {
+            Instruction same = null;
+            if (inst.op == Op.LOAD) {
+                same = loads.get(inst.getOperand(0));
+                if (same == null)
+                    loads.put(inst.getOperand(0), inst);
+            } else if (inst.op == Op.STORE || inst.op == Op.CALL) {
+                loads.clear();
+            } else if (isPure(inst)) {
+                String key = keyOf(inst);
+                same = table.get(key);
+                if (same == null) {
+                    table.put(key, inst);
+                    log.add(key);
+                }
+            }
+            if (same != null) {
+                inst.replaceAllUsesWith(same);
+                inst.dropOperands();
+                inst.parent = null;
+            } else {
+                kept.add(inst);
+            }
+        }
+        block.instructions.clear();
+        block.instructions.addAll(kept);
+    }
+
+    private boolean isPure(Instruction inst) {
+        return inst.op.isBinary() || inst.op == Op.ICMP || inst.op == Op.ZEXT || inst.op == Op.GEP;
+    }
+
+    /**
+     * 表达式的键：运算符、比较条件与操作数编号；加法和乘法的操作数按编号排序
+     *
+     * @param inst 纯运算指令
+     * @return 键
+     */
+    private String keyOf(Instruction inst) {
+        StringBuilder key = new StringBuilder(inst.op.text);
+        if (inst.op == Op.ICMP)
+            key.append(' ').append(inst.cond.text);
+        if ((inst.op == Op.ADD || inst.op == Op.MUL) && idOf(inst.getOperand(0)).compareTo(idOf(inst.getOperand(1))) > 0)
+            return key.append(' ').append(idOf(inst.getOperand(1))).append(' ').append(idOf(inst.getOperand(0))).toString();
+        for (Value operand : inst.operands)
+            key.append(' ').append(idOf(operand));
+        return key.toString();
+    }
+
+    private String idOf(Value value) {
+        if (value instanceof ConstantInt)
+            return "#" + ((ConstantInt) value).value;
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = ids.size();
+            ids.put(value, id);
+        }
+        return "%" + id;
+    }
+}
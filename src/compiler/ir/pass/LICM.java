@@ -0,0 +1,272 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.GlobalVariable;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Type;
+import compiler.ir.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * 循环不变量外提：
+ * 由回边找出自然循环，为每个循环建立唯一的前置块（preheader），
+ * 由内向外把操作数都在循环外定义的纯运算移到前置块；
+ * 从局部数组或全局变量读取、且循环内没有可能修改该对象的 store 或 call 的 load 也一并外提
+ */
+public class LICM implements Pass {
+
+    /**
+     * 自然循环：头节点与循环体内的基本块（含头节点）
+     */
+    private static class Loop {
+        final BasicBlock header;
+        final HashSet<BasicBlock> blocks = new HashSet<>();
+
+        Loop(BasicBlock header) {
+            this.header = header;
+            blocks.add(header);
+        }
+    }
+
+    @Override
+    public void run(Function function) {
+        ArrayList<Loop> loops = findLoops(new DomTree(function));
+        if (loops.isEmpty()) return;
+        for (Loop loop : loops)
+            insertPreheader(function, loop);
+        function.buildCFG();
+
+        DomTree domTree = new DomTree(function);
+        loops = findLoops(domTree);
+        loops.sort(Comparator.comparingInt(loop -> loop.blocks.size()));
+        for (Loop loop : loops)
+            hoist(loop, domTree);
+    }
+
+    /**
+     * 头节点支配尾节点的边为回边，从尾节点逆向搜索到头节点得到循环体；同一头节点的循环合并
+     *
+     * @param domTree 支配树
+     * @return 循环列表
+     */
+    private ArrayList<Loop> findLoops(DomTree domTree) {
+        LinkedHashMap<BasicBlock, Loop> loops = new LinkedHashMap<>();
+        for (BasicBlock block : domTree.getOrder())
+            for (BasicBlock header : block.successors) {
+                if (!domTree.dominates(header, block)) continue;
+                Loop loop = loops.computeIfAbsent(header, Loop::new);
+                ArrayList<BasicBlock> worklist = new ArrayList<>();
+                if (loop.blocks.add(block))
+                    worklist.add(block);
+                while (!worklist.isEmpty()) {
+                    BasicBlock cur = worklist.remove(worklist.size()-1);
+                    for (BasicBlock pred : cur.predecessors)
+                        if (domTree.isReachable(pred) && loop.blocks.add(pred))
+                            worklist.add(pred);
+                }
+            }
+        return new ArrayList<>(loops.values());
+    }
+
+    /**
+     * 若头节点在循环外只有一个前驱且该前驱只跳向头节点，直接用作前置块；
+     * 否则新建前置块，循环外的前驱都改为跳向它，头节点 phi 中来自循环外的来源合并到前置块
+     *
+     * @param function 函数
+     * @param loop 循环
+     */
+    private void insertPreheader(Function function, Loop loop) {
+        BasicBlock header = loop.header;
+        ArrayList<BasicBlock> outside = new ArrayList<>();
+        for (BasicBlock pred : header.predecessors)
+            if (!loop.blocks.contains(pred))
+                outside.add(pred);
+        if (outside.size() == 1 && outside.get(0).successors.size() == 1) return;
+
+        BasicBlock preheader = new BasicBlock(function);
+        function.blocks.add(function.blocks.indexOf(header), preheader);
+        for (int i = 0; i < header.getPhiCount(); i++) {
+            Instruction phi = header.instructions.get(i);
+            Instruction merged = new Instruction(Op.PHI, phi.type);
+            for (int j = 0; j < phi.getIncomingCount(); j++)
+                if (outside.contains(phi.getIncomingBlock(j)))
+                    merged.addIncoming(phi.getIncomingValue(j), phi.getIncomingBlock(j));
+            for (BasicBlock pred : outside)
+                phi.removeIncoming(pred);
+            Value value = merged.getIncomingCount() > 0 ? merged.getIncomingValue(0) : ConstantInt.ZERO;
+            for (int j = 1; j < merged.getIncomingCount(); j++)
+                if (merged.getIncomingValue(j) != value) {
+                    preheader.append(merged);
+                    value = merged;
+                    break;
+                }
+            if (value != merged)
+                merged.dropOperands();
+            phi.addIncoming(value, preheader);
+        }
+        preheader.append(new Instruction(Op.BR, Type.VOID, header));
+        for (BasicBlock pred : outside) {
+            Instruction term = pred.getTerminator();
+            for (int i = 0; i < term.operands.size(); i++)
+                if (term.getOperand(i) == header)
+                    term.setOperand(i, preheader);
+        }
+    }
+
+    /**
+     * 地址所指向的对象：沿 getelementptr 找到最初的指针
+     *
+     * @param pointer 地址
+     * @return alloca、全局变量或形参等
+     */
+    private static Value baseOf(Value pointer) {
+        while (pointer instanceof Instruction && ((Instruction) pointer).op == Op.GEP)
+            pointer = ((Instruction) pointer).getOperand(0);
+        return pointer;
+    }
+
+    private static boolean isObject(Value base) {
+        return base instanceof GlobalVariable || base instanceof Instruction && ((Instruction) base).op == Op.ALLOCA;
+    }
+
+    /**
+     * 由内向外处理时，内层已外提的指令位于外层循环中，会被再次检查
+     *
+     * @param loop 循环
+     * @param domTree 支配树
+     */
+    private void hoist(Loop loop, DomTree domTree) {
+        BasicBlock preheader = null;
+        for (BasicBlock pred : loop.header.predecessors)
+            if (!loop.blocks.contains(pred))
+                preheader = pred;
+        if (preheader == null) return;
+
+        ArrayList<Instruction> writers = new ArrayList<>();     /* 循环内的 store 与 call */
+        ArrayList<BasicBlock> exiting = new ArrayList<>();
+        for (BasicBlock block : loop.blocks) {
+            for (Instruction inst : block.instructions)
+                if (inst.op == Op.STORE || inst.op == Op.CALL)
+                    writers.add(inst);
+            for (BasicBlock succ : block.successors)
+                if (!loop.blocks.contains(succ)) {
+                    exiting.add(block);
+                    break;
+                }
+        }
+
+        for (BasicBlock block : domTree.getOrder()) {
+            if (!loop.blocks.contains(block)) continue;
+            ArrayList<Instruction> kept = new ArrayList<>(block.instructions.size());
+            for (Instruction inst : block.instructions) {
+                boolean invariant = isInvariant(inst, loop) && (inst.op == Op.LOAD
+                        ? canHoistLoad(inst, writers, exiting, domTree)
+                        : isSpeculatable(inst));
+                if (invariant)
+                    preheader.insertBeforeTerminator(inst);
+                else
+                    kept.add(inst);
+            }
+            block.instructions.clear();
+            block.instructions.addAll(kept);
+        }
+    }
+
+    private boolean isInvariant(Instruction inst, Loop loop) {
+        for (Value operand : inst.operands)
+            if (operand instanceof Instruction && loop.blocks.contains(((Instruction) operand).parent))
+                return false;
+        return true;
+    }
+
+    /**
+     * 无副作用且提前执行也不会出错的运算；除法只在除数为非 0、非 -1 的常量时外提
+     *
+     * @param inst 指令
+     * @return 是否可外提
+     */
+    private boolean isSpeculatable(Instruction inst) {
+        switch (inst.op) {
+            case ADD, SUB, MUL, ICMP, ZEXT, GEP:
+                return true;
+            case SDIV, SREM:
+                Value divisor = inst.getOperand(1);
+                return divisor instanceof ConstantInt && ((ConstantInt) divisor).value != 0
+                        && ((ConstantInt) divisor).value != -1;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * load 可外提的条件：
+     * 1. 读取局部数组或全局变量，且循环内的 store 与 call 都不会写该对象
+     * 2. 地址一定合法（常量下标不越界），或该 load 在每次进入循环时都会执行；
+     *    没有出口的循环无法由支配出口块保证执行，只能依据地址合法
+     */
+    private boolean canHoistLoad(Instruction load, ArrayList<Instruction> writers,
+                                 ArrayList<BasicBlock> exiting, DomTree domTree) {
+        Value pointer = load.getOperand(0);
+        Value base = baseOf(pointer);
+        if (!isObject(base)) return false;
+        for (Instruction writer : writers)
+            if (mayWrite(writer, base))
+                return false;
+        if (isDereferenceable(pointer)) return true;
+        if (exiting.isEmpty()) return false;
+        for (BasicBlock block : exiting)
+            if (!domTree.dominates(load.parent, block))
+                return false;
+        return true;
+    }
+
+    /**
+     * store 或 call 是否可能修改对象；指针不能存入内存，函数只能通过实参与全局变量修改对象，
+     * 来源不明的指针（形参派生）可能指向任意全局变量，但不会指向本函数的 alloca
+     *
+     * @param writer store 或 call
+     * @param base alloca 或全局变量
+     * @return 是否可能修改
+     */
+    private boolean mayWrite(Instruction writer, Value base) {
+        boolean global = base instanceof GlobalVariable;
+        if (writer.op == Op.STORE) {
+            Value target = baseOf(writer.getOperand(1));
+            return target == base || global && !isObject(target);
+        }
+        if (global && !((Function) writer.getOperand(0)).isDeclaration()) return true;
+        for (int i = 1; i < writer.operands.size(); i++) {
+            Value arg = writer.getOperand(i);
+            if (!arg.type.isPointer()) continue;
+            Value target = baseOf(arg);
+            if (target == base || global && !isObject(target))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 标量对象本身，或以常量下标访问数组对象且不越界
+     *
+     * @param pointer 地址
+     * @return 是否一定可读
+     */
+    private boolean isDereferenceable(Value pointer) {
+        if (isObject(pointer)) return true;
+        if (!(pointer instanceof Instruction) || ((Instruction) pointer).op != Op.GEP) return false;
+        Instruction gep = (Instruction) pointer;
+        Value base = gep.getOperand(0);
+        if (!isObject(base) || !base.type.elemType.isArray() || gep.operands.size() != 3) return false;
+        if (!(gep.getOperand(1) instanceof ConstantInt) || !(gep.getOperand(2) instanceof ConstantInt)) return false;
+        int first = ((ConstantInt) gep.getOperand(1)).value;
+        int index = ((ConstantInt) gep.getOperand(2)).value;
+        return first == 0 && index >= 0 && index < base.type.elemType.length;
+    }
+}
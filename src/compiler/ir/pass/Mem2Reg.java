@@ -0,0 +1,239 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 将只被 load/store 直接访问的标量 alloca 提升为 SSA 值：
+ * 在定值块的迭代支配边界上放置 phi，再沿支配树重命名，最后删除平凡和无用的 phi
+ */
+public class Mem2Reg implements Pass {
+
+    private final ArrayList<Instruction> allocas = new ArrayList<>();
+    private final HashMap<Instruction, Integer> allocaIdx = new HashMap<>();
+    private final HashMap<Instruction, Integer> phiIdx = new HashMap<>();   /* 插入的 phi 对应的变量 */
+    private final ArrayList<ArrayList<Value>> stacks = new ArrayList<>();   /* 每个变量当前的到达定值 */
+    private final ArrayList<Integer> defLog = new ArrayList<>();            /* 压栈记录，离开支配子树时撤销 */
+
+    @Override
+    public void run(Function function) {
+        allocas.clear();
+        allocaIdx.clear();
+        phiIdx.clear();
+        stacks.clear();
+        defLog.clear();
+
+        function.removeUnreachableBlocks();
+        for (Instruction inst : function.getEntry().instructions)
+            if (inst.op == Op.ALLOCA && isPromotable(inst)) {
+                allocaIdx.put(inst, allocas.size());
+                allocas.add(inst);
+                stacks.add(new ArrayList<>());
+            }
+        if (allocas.isEmpty()) return;
+
+        DomTree domTree = new DomTree(function);
+        insertPhis(domTree);
+        rename(domTree);
+        function.getEntry().instructions.removeIf(allocaIdx::containsKey);
+        removeTrivialPhis(phiIdx.keySet());
+        removeDeadPhis();
+    }
+
+    /**
+     * alloca 可提升当且仅当它不是数组，且只作为 load 的地址或 store 的目标地址出现
+     *
+     * @param alloca alloca 指令
+     * @return 是否可提升
+     */
+    private boolean isPromotable(Instruction alloca) {
+        if (alloca.type.elemType.isArray()) return false;
+        for (Instruction user : alloca.users) {
+            if (user.op == Op.LOAD) continue;
+            if (user.op == Op.STORE && user.getOperand(1) == alloca && user.getOperand(0) != alloca) continue;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 在每个变量定值块的迭代支配边界上放置 phi
+     *
+     * @param domTree 支配树
+     */
+    private void insertPhis(DomTree domTree) {
+        for (int idx = 0; idx < allocas.size(); idx++) {
+            Instruction alloca = allocas.get(idx);
+            HashSet<BasicBlock> defBlocks = new HashSet<>();
+            for (Instruction user : alloca.users)
+                if (user.op == Op.STORE)
+                    defBlocks.add(user.parent);
+            ArrayList<BasicBlock> worklist = new ArrayList<>(defBlocks);
+            HashSet<BasicBlock> hasPhi = new HashSet<>();
+            while (!worklist.isEmpty()) {
+                BasicBlock block = worklist.remove(worklist.size()-1);
+                for (BasicBlock df : domTree.getFrontier(block)) {
+                    if (!hasPhi.add(df)) continue;
+                    Instruction phi = new Instruction(Op.PHI, alloca.type.elemType);
+                    df.insert(0, phi);
+                    phiIdx.put(phi, idx);
+                    if (!defBlocks.contains(df))
+                        worklist.add(df);
+                }
+            }
+        }
+    }
+
+    /**
+     * 非递归地先序遍历支配树，将 load 替换为到达定值，删除 store，并填写后继中 phi 的来源
+     *
+     * @param domTree 支配树
+     */
+    private void rename(DomTree domTree) {
+        ArrayList<BasicBlock> stack = new ArrayList<>();
+        ArrayList<Integer> next = new ArrayList<>();    /* 下一个待访问的子节点 */
+        ArrayList<Integer> marks = new ArrayList<>();   /* 进入时 defLog 的长度 */
+        BasicBlock entry = domTree.getOrder().get(0);
+        stack.add(entry);
+        next.add(0);
+        marks.add(defLog.size());
+        renameBlock(entry);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            int i = next.get(top);
+            List<BasicBlock> kids = domTree.getChildren(stack.get(top));
+            if (i < kids.size()) {
+                next.set(top, i + 1);
+                stack.add(kids.get(i));
+                next.add(0);
+                marks.add(defLog.size());
+                renameBlock(kids.get(i));
+            } else {
+                for (int mark = marks.get(top); defLog.size() > mark; ) {
+                    int idx = defLog.remove(defLog.size()-1);
+                    ArrayList<Value> defs = stacks.get(idx);
+                    defs.remove(defs.size()-1);
+                }
+                stack.remove(top);
+                next.remove(top);
+                marks.remove(top);
+            }
+        }
+    }
+
+    private void renameBlock(BasicBlock block) {
+        ArrayList<Instruction> kept = new ArrayList<>(block.instructions.size());
+        for (Instruction inst : block.instructions) {
+            if (inst.op == Op.PHI && phiIdx.containsKey(inst)) {
+                define(phiIdx.get(inst), inst);
+            } else if (inst.op == Op.LOAD && allocaIdx.containsKey(inst.getOperand(0))) {
+                inst.replaceAllUsesWith(current(allocaIdx.get(inst.getOperand(0))));
+                inst.dropOperands();
+                inst.parent = null;
+                continue;
+            } else if (inst.op == Op.STORE && allocaIdx.containsKey(inst.getOperand(1))) {
+                define(allocaIdx.get(inst.getOperand(1)), inst.getOperand(0));
+                inst.dropOperands();
+                inst.parent = null;
+                continue;
+            }
+            kept.add(inst);
+        }
+        block.instructions.clear();
+        block.instructions.addAll(kept);
+
+        for (BasicBlock succ : block.successors)
+            for (int i = 0; i < succ.getPhiCount(); i++) {
+                Instruction phi = succ.instructions.get(i);
+                if (phiIdx.containsKey(phi))
+                    phi.addIncoming(current(phiIdx.get(phi)), block);
+            }
+    }
+
+    private void define(int idx, Value value) {
+        stacks.get(idx).add(value);
+        defLog.add(idx);
+    }
+
+    /**
+     * 变量当前的到达定值，未赋值就读取时取 0
+     *
+     * @param idx 变量序号
+     * @return 到达定值
+     */
+    private Value current(int idx) {
+        ArrayList<Value> defs = stacks.get(idx);
+        return defs.isEmpty() ? ConstantInt.ZERO : defs.get(defs.size()-1);
+    }
+
+    /**
+     * 删除所有来源都相同（不计自身）的 phi，并检查因此可能变得平凡的使用者
+     *
+     * @param phis 待检查的 phi
+     */
+    static void removeTrivialPhis(Collection<Instruction> phis) {
+        ArrayList<Instruction> worklist = new ArrayList<>(phis);
+        while (!worklist.isEmpty()) {
+            Instruction phi = worklist.remove(worklist.size()-1);
+            if (phi.parent == null) continue;
+            Value same = null;
+            boolean trivial = true;
+            for (int i = 0; i < phi.getIncomingCount(); i++) {
+                Value value = phi.getIncomingValue(i);
+                if (value == phi || value == same) continue;
+                if (same != null) {
+                    trivial = false;
+                    break;
+                }
+                same = value;
+            }
+            if (!trivial) continue;
+            for (Instruction user : phi.users)
+                if (user.op == Op.PHI && user != phi)
+                    worklist.add(user);
+            phi.replaceAllUsesWith(same == null ? ConstantInt.ZERO : same);
+            phi.eraseFromParent();
+        }
+    }
+
+    /**
+     * 删除只被（同样无用的）phi 使用的 phi
+     */
+    private void removeDeadPhis() {
+        HashSet<Instruction> live = new HashSet<>();
+        ArrayList<Instruction> worklist = new ArrayList<>();
+        for (Instruction phi : phiIdx.keySet()) {
+            if (phi.parent == null) continue;
+            for (Instruction user : phi.users)
+                if (!phiIdx.containsKey(user)) {
+                    live.add(phi);
+                    worklist.add(phi);
+                    break;
+                }
+        }
+        while (!worklist.isEmpty()) {
+            Instruction phi = worklist.remove(worklist.size()-1);
+            for (Value operand : phi.operands)
+                if (operand instanceof Instruction && phiIdx.containsKey(operand) && live.add((Instruction) operand))
+                    worklist.add((Instruction) operand);
+        }
+        ArrayList<Instruction> dead = new ArrayList<>();
+        for (Instruction phi : phiIdx.keySet())
+            if (phi.parent != null && !live.contains(phi))
+                dead.add(phi);
+        for (Instruction phi : dead)
+            phi.dropOperands();
+        for (Instruction phi : dead)
+            phi.eraseFromParent();
+    }
+}
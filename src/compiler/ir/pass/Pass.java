@@ -0,0 +1,16 @@
+package compiler.ir.pass;
+
+import compiler.ir.Function;
+
+/**
+ * 以函数为单位对 IR 做变换的优化遍
+ */
+public interface Pass {
+
+    /**
+     * 对函数执行变换，执行后函数的前驱后继关系须保持最新
+     *
+     * @param function 非声明的函数
+     */
+    void run(Function function);
+}
@@ -0,0 +1,32 @@
+package compiler.ir.pass;
+
+import compiler.ir.Function;
+import compiler.ir.Module;
+
+import java.util.ArrayList;
+
+/**
+ * 按加入顺序对每个函数依次执行各优化遍
+ */
+public class PassManager {
+
+    private final ArrayList<Pass> passes = new ArrayList<>();
+
+    public PassManager add(Pass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * 对编译单元中所有定义的函数执行优化
+     *
+     * @param module 编译单元
+     */
+    public void run(Module module) {
+        for (Function function : module.functions) {
+            if (function.isDeclaration()) continue;
+            for (Pass pass : passes)
+                pass.run(function);
+        }
+    }
+}
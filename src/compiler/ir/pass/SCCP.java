@@ -0,0 +1,232 @@
+package compiler.ir.pass;
+
+import compiler.ir.BasicBlock;
+import compiler.ir.ConstantInt;
+import compiler.ir.Function;
+import compiler.ir.Instruction;
+import compiler.ir.Instruction.Op;
+import compiler.ir.Type;
+import compiler.ir.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * 稀疏条件常量传播（Wegman-Zadeck）：
+ * 只沿可执行的控制流边求值，值的格为 未定 -> 常量 -> 非常量；
+ * 求解后把常量值替换进使用处，把条件确定的跳转改为无条件跳转，并删除由此不可达的基本块
+ */
+public class SCCP implements Pass {
+
+    /* 不在 constants 与 overdefined 中的指令处于“未定”状态 */
+    private final HashMap<Instruction, Integer> constants = new HashMap<>();
+    private final HashSet<Instruction> overdefined = new HashSet<>();
+    private final HashSet<BasicBlock> executable = new HashSet<>();
+    private final HashMap<BasicBlock, HashSet<BasicBlock>> executableEdges = new HashMap<>();
+    private final ArrayList<BasicBlock> blockWorklist = new ArrayList<>();
+    private final ArrayList<Instruction> instWorklist = new ArrayList<>();
+
+    @Override
+    public void run(Function function) {
+        constants.clear();
+        overdefined.clear();
+        executable.clear();
+        executableEdges.clear();
+
+        BasicBlock entry = function.getEntry();
+        executable.add(entry);
+        blockWorklist.add(entry);
+        while (!blockWorklist.isEmpty() || !instWorklist.isEmpty()) {
+            while (!instWorklist.isEmpty()) {
+                Instruction inst = instWorklist.remove(instWorklist.size()-1);
+                if (executable.contains(inst.parent))
+                    visit(inst);
+            }
+            while (!blockWorklist.isEmpty()) {
+                BasicBlock block = blockWorklist.remove(blockWorklist.size()-1);
+                for (Instruction inst : block.instructions)
+                    visit(inst);
+            }
+        }
+        rewrite(function);
+    }
+
+    /**
+     * 标记控制流边可执行；目标块首次可执行时整体求值，否则只需重新求值其 phi
+     *
+     * @param from 源基本块
+     * @param to 目标基本块
+     */
+    private void markEdge(BasicBlock from, BasicBlock to) {
+        if (!executableEdges.computeIfAbsent(from, k -> new HashSet<>()).add(to)) return;
+        if (executable.add(to)) {
+            blockWorklist.add(to);
+        } else {
+            for (int i = 0; i < to.getPhiCount(); i++)
+                visit(to.instructions.get(i));
+        }
+    }
+
+    private boolean isEdgeExecutable(BasicBlock from, BasicBlock to) {
+        HashSet<BasicBlock> succs = executableEdges.get(from);
+        return succs != null && succs.contains(to);
+    }
+
+    /**
+     * 常量返回其值，非常量返回空；未定状态由 isUndefined 判断
+     */
+    private Integer constantOf(Value value) {
+        if (value instanceof ConstantInt) return ((ConstantInt) value).value;
+        if (value instanceof Instruction) return constants.get(value);
+        return null;
+    }
+
+    private boolean isUndefined(Value value) {
+        return value instanceof Instruction && !constants.containsKey(value) && !overdefined.contains(value);
+    }
+
+    private void markConstant(Instruction inst, int value) {
+        if (constants.containsKey(inst) || overdefined.contains(inst)) return;
+        constants.put(inst, value);
+        instWorklist.addAll(inst.users);
+    }
+
+    private void markOverdefined(Instruction inst) {
+        if (!overdefined.add(inst)) return;
+        constants.remove(inst);
+        instWorklist.addAll(inst.users);
+    }
+
+    private void visit(Instruction inst) {
+        if (overdefined.contains(inst)) return;
+        switch (inst.op) {
+            case BR -> visitBr(inst);
+            case PHI -> visitPhi(inst);
+            case ADD, SUB, MUL, SDIV, SREM, ICMP, ZEXT -> visitExpr(inst);
+            case STORE, RET -> { }
+            default -> markOverdefined(inst);
+        }
+    }
+
+    private void visitBr(Instruction br) {
+        BasicBlock block = br.parent;
+        if (br.operands.size() == 1) {
+            markEdge(block, (BasicBlock) br.getOperand(0));
+            return;
+        }
+        Value cond = br.getOperand(0);
+        Integer value = constantOf(cond);
+        if (value != null) {
+            markEdge(block, (BasicBlock) br.getOperand(value != 0 ? 1 : 2));
+        } else if (!isUndefined(cond)) {
+            markEdge(block, (BasicBlock) br.getOperand(1));
+            markEdge(block, (BasicBlock) br.getOperand(2));
+        }
+    }
+
+    /**
+     * phi 的值为所有可执行来源的交汇
+     *
+     * @param phi phi 指令
+     */
+    private void visitPhi(Instruction phi) {
+        Integer result = null;
+        for (int i = 0; i < phi.getIncomingCount(); i++) {
+            if (!isEdgeExecutable(phi.getIncomingBlock(i), phi.parent)) continue;
+            Value incoming = phi.getIncomingValue(i);
+            if (isUndefined(incoming)) continue;
+            Integer value = constantOf(incoming);
+            if (value == null || (result != null && !result.equals(value))) {
+                markOverdefined(phi);
+                return;
+            }
+            result = value;
+        }
+        if (result != null)
+            markConstant(phi, result);
+    }
+
+    private void visitExpr(Instruction inst) {
+        boolean undefined = false;
+        for (Value operand : inst.operands) {
+            if (isUndefined(operand)) {
+                undefined = true;
+            } else if (constantOf(operand) == null) {
+                markOverdefined(inst);
+                return;
+            }
+        }
+        if (undefined) return;
+        Integer value = fold(inst);
+        if (value == null)
+            markOverdefined(inst);
+        else
+            markConstant(inst, value);
+    }
+
+    /**
+     * 计算操作数均为常量的指令，除零留到运行时
+     *
+     * @param inst 指令
+     * @return 结果，无法折叠时返回空
+     */
+    private Integer fold(Instruction inst) {
+        int lhs = constantOf(inst.getOperand(0));
+        if (inst.op == Op.ZEXT) return lhs;
+        int rhs = constantOf(inst.getOperand(1));
+        return switch (inst.op) {
+            case ADD -> lhs + rhs;
+            case SUB -> lhs - rhs;
+            case MUL -> lhs * rhs;
+            case SDIV -> rhs == 0 ? null : lhs / rhs;
+            case SREM -> rhs == 0 ? null : lhs % rhs;
+            case ICMP -> switch (inst.cond) {
+                case EQ -> lhs == rhs ? 1 : 0;
+                case NE -> lhs != rhs ? 1 : 0;
+                case SLT -> lhs < rhs ? 1 : 0;
+                case SGT -> lhs > rhs ? 1 : 0;
+                case SLE -> lhs <= rhs ? 1 : 0;
+                case SGE -> lhs >= rhs ? 1 : 0;
+            };
+            default -> null;
+        };
+    }
+
+    /**
+     * 按求解结果改写函数
+     *
+     * @param function 函数
+     */
+    private void rewrite(Function function) {
+        ArrayList<Instruction> phis = new ArrayList<>();
+        for (BasicBlock block : function.blocks) {
+            if (!executable.contains(block)) continue;
+            for (Instruction inst : block.instructions) {
+                Integer value = constants.get(inst);
+                if (value == null) continue;
+                inst.replaceAllUsesWith(inst.type == Type.I1 ? ConstantInt.get(value != 0) : ConstantInt.get(value));
+                inst.dropOperands();
+            }
+            block.instructions.removeIf(constants::containsKey);
+
+            Instruction br = block.getTerminator();
+            if (br.op == Op.BR && br.operands.size() == 3 && br.getOperand(0) instanceof ConstantInt) {
+                int index = ((ConstantInt) br.getOperand(0)).value != 0 ? 1 : 2;
+                BasicBlock taken = (BasicBlock) br.getOperand(index);
+                BasicBlock other = (BasicBlock) br.getOperand(3 - index);
+                if (other != taken)
+                    for (int i = 0; i < other.getPhiCount(); i++)
+                        other.instructions.get(i).removeIncoming(block);
+                br.dropOperands();
+                br.addOperand(taken);
+            }
+        }
+        function.buildCFG();
+        function.removeUnreachableBlocks();
+        for (BasicBlock block : function.blocks)
+            for (int i = 0; i < block.getPhiCount(); i++)
+                phis.add(block.instructions.get(i));
+        Mem2Reg.removeTrivialPhis(phis);
+    }
+}
@@ -1,55 +1,141 @@
 package compiler.lexer;
 
-import java.util.Arrays;
-
+/**
+ * 词法分析的查表数据：ASCII 字符类别表与识别 token 的确定有限自动机
+ * 自动机按最长匹配运行，读到死状态时回到最近一次经过的接受状态
+ */
 public class Judger {
 
-    private char aChar;
+    /* 字符类别，非 ASCII 字符属于 OTHER */
+    static final int C_OTHER = 0;
+    static final int C_SPACE = 1;           /* 空格、制表符、换行 */
+    static final int C_LETTER = 2;          /* 除十六进制字母与 x 外的字母、下划线 */
+    static final int C_HEX_LETTER = 3;      /* a-f A-F */
+    static final int C_X = 4;               /* x X */
+    static final int C_ZERO = 5;
+    static final int C_OCTAL = 6;           /* 1-7 */
+    static final int C_DECIMAL = 7;         /* 8 9 */
+    static final int C_PUNCT = 8;           /* 单字符 token */
+    static final int C_EQ = 9;              /* = */
+    static final int C_LT = 10;
+    static final int C_GT = 11;
+    static final int C_NOT = 12;
+    static final int C_AMP = 13;
+    static final int C_BAR = 14;
+    static final int CLASS_COUNT = 15;
 
-    public void setAChar(char aChar) {
-        this.aChar = aChar;
-    }
+    static final byte[] CLASS = new byte[128];
+    static final TokenKind[] PUNCT_KIND = new TokenKind[128];     /* 单字符 token 的类别 */
 
-    public static final String[] REVERSER = {
-            "if", "else", "while", "break", "continue", "return", "int", "void", "const"
-    };
-    public boolean isReversed(String str) {
-        return Arrays.asList(REVERSER).contains(str);
-    }
+    /* 自动机状态 */
+    static final int S_DEAD = 0;
+    static final int S_START = 1;
+    static final int S_IDENT = 2;
+    static final int S_DECIMAL = 3;
+    static final int S_ZERO = 4;
+    static final int S_OCTAL = 5;
+    static final int S_HEX_PREFIX = 6;      /* 0x，不接受 */
+    static final int S_HEX = 7;
+    static final int S_PUNCT = 8;
+    static final int S_ASSIGN = 9;
+    static final int S_EQ = 10;
+    static final int S_LT = 11;
+    static final int S_LEQ = 12;
+    static final int S_GT = 13;
+    static final int S_GEQ = 14;
+    static final int S_NOT = 15;
+    static final int S_NEQ = 16;
+    static final int S_AMP = 17;            /* &，不接受 */
+    static final int S_AND = 18;
+    static final int S_BAR = 19;            /* |，不接受 */
+    static final int S_OR = 20;
+    static final int STATE_COUNT = 21;
 
-    public boolean isSpace() {
-        return aChar == ' ';
-    }
-    public boolean isNewline() {
-        return aChar == '\n' || aChar == '\r';
-    }
-    public boolean isTab() {
-        return aChar == '\t';
-    }
-    public boolean isLetter() {
-        return Character.isLetter(aChar);
-    }
-    public boolean isNonZeroDigit() {
-        return (aChar >= '1' && aChar <= '9');
-    }
-    public boolean isOctalDigit() {
-        return (aChar >= '0' && aChar <= '7');
-    }
-    public boolean isHexDigit() {
-        return (aChar >= '0' && aChar <= '9') || (aChar >= 'a' && aChar <= 'f')
-                || (aChar >= 'A' && aChar <= 'F');
-    }
-    public boolean isDigit() {
-        return Character.isDigit(aChar);
-    }
-    public boolean isNonDigit() {
-        return isLetter() || (aChar == '_');
-    }
-    public boolean isDecimalConst() {
-        return isNonZeroDigit();
+    static final byte[] NEXT = new byte[STATE_COUNT * CLASS_COUNT];    /* 状态转移表，默认转移到死状态 */
+    static final TokenKind[] ACCEPT = new TokenKind[STATE_COUNT];      /* 接受状态对应的 token 类别 */
+
+    static {
+        CLASS[' '] = CLASS['\t'] = CLASS['\n'] = CLASS['\r'] = C_SPACE;
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASS[c] = C_LETTER;
+            CLASS[Character.toUpperCase(c)] = C_LETTER;
+        }
+        CLASS['_'] = C_LETTER;
+        for (char c = 'a'; c <= 'f'; c++) {
+            CLASS[c] = C_HEX_LETTER;
+            CLASS[Character.toUpperCase(c)] = C_HEX_LETTER;
+        }
+        CLASS['x'] = CLASS['X'] = C_X;
+        CLASS['0'] = C_ZERO;
+        for (char c = '1'; c <= '7'; c++)
+            CLASS[c] = C_OCTAL;
+        CLASS['8'] = CLASS['9'] = C_DECIMAL;
+        for (TokenKind kind : new TokenKind[] {TokenKind.SEMICOLON, TokenKind.COMMA, TokenKind.LPAR, TokenKind.RPAR,
+                TokenKind.LBRACE, TokenKind.RBRACE, TokenKind.LBRACKET, TokenKind.RBRACKET, TokenKind.PLUS,
+                TokenKind.MINUS, TokenKind.MULT, TokenKind.DIV, TokenKind.MOD}) {
+            CLASS[kind.text.charAt(0)] = C_PUNCT;
+            PUNCT_KIND[kind.text.charAt(0)] = kind;
+        }
+        CLASS['='] = C_EQ;
+        CLASS['<'] = C_LT;
+        CLASS['>'] = C_GT;
+        CLASS['!'] = C_NOT;
+        CLASS['&'] = C_AMP;
+        CLASS['|'] = C_BAR;
+
+        int[] identChars = {C_LETTER, C_HEX_LETTER, C_X, C_ZERO, C_OCTAL, C_DECIMAL};
+        int[] hexDigits = {C_HEX_LETTER, C_ZERO, C_OCTAL, C_DECIMAL};
+        move(S_START, S_IDENT, C_LETTER, C_HEX_LETTER, C_X);
+        move(S_IDENT, S_IDENT, identChars);
+        move(S_START, S_DECIMAL, C_OCTAL, C_DECIMAL);
+        move(S_DECIMAL, S_DECIMAL, C_ZERO, C_OCTAL, C_DECIMAL);
+        move(S_START, S_ZERO, C_ZERO);
+        move(S_ZERO, S_OCTAL, C_ZERO, C_OCTAL);
+        move(S_OCTAL, S_OCTAL, C_ZERO, C_OCTAL);
+        move(S_ZERO, S_HEX_PREFIX, C_X);
+        move(S_HEX_PREFIX, S_HEX, hexDigits);
+        move(S_HEX, S_HEX, hexDigits);
+        move(S_START, S_PUNCT, C_PUNCT);
+        move(S_START, S_ASSIGN, C_EQ);
+        move(S_ASSIGN, S_EQ, C_EQ);
+        move(S_START, S_LT, C_LT);
+        move(S_LT, S_LEQ, C_EQ);
+        move(S_START, S_GT, C_GT);
+        move(S_GT, S_GEQ, C_EQ);
+        move(S_START, S_NOT, C_NOT);
+        move(S_NOT, S_NEQ, C_EQ);
+        move(S_START, S_AMP, C_AMP);
+        move(S_AMP, S_AND, C_AMP);
+        move(S_START, S_BAR, C_BAR);
+        move(S_BAR, S_OR, C_BAR);
+
+        ACCEPT[S_IDENT] = TokenKind.IDENT;
+        ACCEPT[S_DECIMAL] = ACCEPT[S_ZERO] = ACCEPT[S_OCTAL] = ACCEPT[S_HEX] = TokenKind.NUMBER;
+        ACCEPT[S_PUNCT] = TokenKind.DIV;        /* 实际类别由 PUNCT_KIND 决定 */
+        ACCEPT[S_ASSIGN] = TokenKind.ASSIGN;
+        ACCEPT[S_EQ] = TokenKind.EQ;
+        ACCEPT[S_LT] = TokenKind.LT;
+        ACCEPT[S_LEQ] = TokenKind.LEQ;
+        ACCEPT[S_GT] = TokenKind.GT;
+        ACCEPT[S_GEQ] = TokenKind.GEQ;
+        ACCEPT[S_NOT] = TokenKind.NOT;
+        ACCEPT[S_NEQ] = TokenKind.NEQ;
+        ACCEPT[S_AND] = TokenKind.AND;
+        ACCEPT[S_OR] = TokenKind.OR;
     }
-    public boolean isOctalConst() {
-        return aChar == '0';
+
+    private static void move(int from, int to, int... classes) {
+        for (int c : classes)
+            NEXT[from * CLASS_COUNT + c] = (byte) to;
     }
 
+    /**
+     * 字符的类别
+     *
+     * @param c 字符
+     * @return 类别
+     */
+    static int classOf(char c) {
+        return c < 128 ? CLASS[c] : C_OTHER;
+    }
 }
@@ -0,0 +1,99 @@
+package compiler.lexer;
+
+/**
+ * 全局标识符表：每个不同的标识符分配一个从 0 开始的连续编号，同名标识符共用同一个字符串；
+ * 扫描时直接按源文本区间查找，已出现过的标识符不再生成子串
+ */
+public class NameTable {
+
+    private static String[] names = new String[256];    /* 编号到名字 */
+    private static int[] slots = new int[512];          /* 开放定址哈希表，存放编号+1，0 表示空位 */
+    private static int size;                            /* 已分配的编号数 */
+
+    /**
+     * 获取源文本 [start, end) 中标识符的编号，首次出现时分配新编号
+     *
+     * @param src 源文本
+     * @param start 起始位置
+     * @param end 结束位置
+     * @return 编号
+     */
+    public static int intern(String src, int start, int end) {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + src.charAt(i);       /* 与 String.hashCode 一致 */
+        int mask = slots.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int id = slots[i] - 1;
+            if (id < 0) {
+                String name = start == 0 && end == src.length() ? src : src.substring(start, end);
+                return add(name, i);
+            }
+            String name = names[id];
+            if (name.hashCode() == hash && name.length() == length && src.regionMatches(start, name, 0, length))
+                return id;
+        }
+    }
+
+    /**
+     * 获取标识符的编号，首次出现时分配新编号
+     *
+     * @param name 标识符
+     * @return 编号
+     */
+    public static int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * 编号对应的标识符
+     *
+     * @param id 编号
+     * @return 标识符
+     */
+    public static String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * 已分配的编号数，编号都小于该值
+     *
+     * @return 编号数
+     */
+    public static int size() {
+        return size;
+    }
+
+    private static int add(String name, int slot) {
+        if (size == names.length) {
+            String[] larger = new String[size * 2];
+            System.arraycopy(names, 0, larger, 0, size);
+            names = larger;
+        }
+        names[size] = name;
+        slots[slot] = size + 1;
+        size++;
+        if (size * 2 > slots.length)
+            rehash();
+        return size - 1;
+    }
+
+    /**
+     * 哈希表容量翻倍，保持装载因子不超过 1/2
+     */
+    private static void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int i = spread(names[id].hashCode()) & mask;
+            while (slots[i] != 0)
+                i = (i + 1) & mask;
+            slots[i] = id + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,32 +1,60 @@
 package compiler.lexer;
 
-public class Token {
+import java.math.BigInteger;
 
-    public String symbol;
-    public String value;
+/**
+ * token 只记录类别及其在源文本中的位置 [start, end)；保留字与运算符的值共用其固定拼写，
+ * 标识符的值共用 NameTable 中的名字，数字常量的值在首次使用时才生成
+ */
+public class Token {
 
+    public final TokenKind kind;
+    private final String src;       /* 源文本 */
+    public final int start;         /* 起始位置 */
+    public final int end;           /* 结束位置（不含） */
+    private final int radix;        /* 数字常量的进制，值统一转换为十进制 */
+    public final int id;            /* 标识符在 NameTable 中的编号，其余 token 为 -1 */
+    private String value;           /* 按需生成的值 */
+
+    /**
+     * 文本结束标志
+     */
     public Token() {
-        symbol = "";
-        value = "";
+        this(TokenKind.EOF, "", 0, 0);
     }
 
-    public boolean equals(String s) {
-        return value.equals(s);
+    public Token(TokenKind kind, String src, int start, int end) {
+        this(kind, src, start, end, 10);
     }
 
-    public boolean isNumber() {
-        return symbol.equals("Number");
-    }
-    public boolean isIdent() {
-        return symbol.equals("Ident");
+    public Token(TokenKind kind, String src, int start, int end, int radix) {
+        this.kind = kind;
+        this.src = src;
+        this.start = start;
+        this.end = end;
+        this.radix = radix;
+        this.value = kind.text;
+        this.id = kind == TokenKind.IDENT ? NameTable.intern(src, start, end) : -1;
     }
 
-    public boolean isEmpty() {
-        return this.symbol.equals("") && this.value.equals("");
+    /**
+     * 获取 token 的值，数字常量为十进制形式
+     *
+     * @return 值
+     */
+    public String getValue() {
+        if (value == null && id >= 0)
+            value = NameTable.nameOf(id);
+        if (value == null) {
+            value = src.substring(start, end);
+            if (radix != 10)
+                value = new BigInteger(value, radix).toString();
+        }
+        return value;
     }
 
     public String toString() {
-        return symbol + "  " + value;
+        return kind.symbol + "  " + getValue();
     }
 
 }
@@ -0,0 +1,66 @@
+package compiler.lexer;
+
+/**
+ * token 类别，symbol 为输出时的类别名，text 为保留字与符号的固定文本
+ */
+public enum TokenKind {
+
+    IDENT("Ident"), NUMBER("Number"),
+
+    IF("If", "if"), ELSE("Else", "else"), WHILE("While", "while"), BREAK("Break", "break"),
+    CONTINUE("Continue", "continue"), RETURN("Return", "return"), INT("Int", "int"),
+    VOID("Void", "void"), CONST("Const", "const"),
+
+    SEMICOLON("Semicolon", ";"), COMMA("Comma", ","), LPAR("LPar", "("), RPAR("RPar", ")"),
+    LBRACE("LBrace", "{"), RBRACE("RBrace", "}"), LBRACKET("LBracket", "["), RBRACKET("RBracket", "]"),
+    PLUS("Plus", "+"), MINUS("Minus", "-"), MULT("Mult", "*"), DIV("Div", "/"), MOD("Mod", "%"),
+    ASSIGN("Assign", "="), EQ("Eq", "=="), NEQ("Neq", "!="), LT("Lt", "<"), GT("Gt", ">"),
+    LEQ("Leq", "<="), GEQ("Geq", ">="), NOT("Not", "!"), AND("And", "&&"), OR("Or", "||"),
+
+    EOF("", "");        /* 文本结束 */
+
+    public final String symbol;
+    public final String text;
+
+    TokenKind(String symbol) {
+        this(symbol, null);
+    }
+
+    TokenKind(String symbol, String text) {
+        this.symbol = symbol;
+        this.text = text;
+    }
+
+    /* 保留字的完美哈希表：(5 * 首字符 + 末字符 + 长度) mod 16 对 9 个保留字互不冲突 */
+    private static final TokenKind[] KEYWORDS = new TokenKind[16];
+    static {
+        for (TokenKind kind : new TokenKind[] {IF, ELSE, WHILE, BREAK, CONTINUE, RETURN, INT, VOID, CONST}) {
+            String text = kind.text;
+            int slot = hash(text.charAt(0), text.charAt(text.length()-1), text.length());
+            if (KEYWORDS[slot] != null)
+                throw new ExceptionInInitializerError("keyword hash collision: " + text);
+            KEYWORDS[slot] = kind;
+        }
+    }
+
+    private static int hash(char first, char last, int length) {
+        return (5 * first + last + length) & 15;
+    }
+
+    /**
+     * 判断源文本 [start, end) 中的标识符是否为保留字
+     *
+     * @param src 源文本
+     * @param start 起始位置
+     * @param end 结束位置
+     * @return 保留字类别，不是保留字时为 IDENT
+     */
+    public static TokenKind keyword(String src, int start, int end) {
+        int length = end - start;
+        if (length < 2 || length > 8) return IDENT;
+        TokenKind kind = KEYWORDS[hash(src.charAt(start), src.charAt(end-1), length)];
+        if (kind != null && kind.text.length() == length && src.regionMatches(start, kind.text, 0, length))
+            return kind;
+        return IDENT;
+    }
+}
@@ -0,0 +1,71 @@
+package compiler.lexer;
+
+/**
+ * 按需从 Scanner 读取 token 的流，只缓存尚未消耗的前瞻 token，文本结束后不断返回 EOF
+ */
+public class TokenStream {
+
+    private final Scanner scanner;
+    private Token[] buffer = new Token[4];      /* 前瞻 token 的环形缓冲区 */
+    private int head;                           /* 下一个 token 在缓冲区中的位置 */
+    private int size;                           /* 已缓存的 token 数 */
+    private boolean finished;                   /* 是否已读到文本结束 */
+
+    /**
+     * 构造函数
+     *
+     * @param scanner 词法分析器
+     */
+    public TokenStream(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * 查看第 k 个尚未消耗的 token，k 从 0 开始，不移动流的位置
+     *
+     * @param k 前瞻距离
+     * @return token
+     */
+    public Token peek(int k) {
+        while (size <= k) {
+            if (size == buffer.length)
+                grow();
+            buffer[(head + size) & (buffer.length-1)] = read();
+            size++;
+        }
+        return buffer[(head + k) & (buffer.length-1)];
+    }
+
+    /**
+     * 消耗并返回下一个 token
+     *
+     * @return token
+     */
+    public Token next() {
+        Token token = peek(0);
+        buffer[head] = null;
+        head = (head + 1) & (buffer.length-1);
+        size--;
+        return token;
+    }
+
+    private Token read() {
+        Token token = finished ? null : scanner.getToken();
+        if (token == null) {
+            finished = true;
+            return new Token();
+        }
+        return token;
+    }
+
+    /**
+     * 缓冲区容量翻倍，保持 2 的幂以便取模
+     */
+    private void grow() {
+        Token[] larger = new Token[buffer.length * 2];
+        for (int i = 0; i < size; i++)
+            larger[i] = buffer[(head + i) & (buffer.length-1)];
+        buffer = larger;
+        head = 0;
+    }
+}
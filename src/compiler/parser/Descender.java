@@ -1,35 +1,35 @@
 package compiler.parser;
 
 import compiler.lexer.Token;
+import compiler.lexer.TokenStream;
 import compiler.parser.ast.NodeData;
 import compiler.parser.ast.TreeNode;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 
 import static compiler.exception.CompileException.error;
+import static compiler.lexer.TokenKind.*;
 
 public class Descender {
 
-    public ArrayList<Token> tokens;     /* 递归下降处理的 tokens */
-    private int tokenId;                /* 当前 token 的序号 */
+    private final TokenStream tokens;   /* 递归下降处理的 token 流 */
     private Token curToken;             /* 当前 token */
     private TreeNode<NodeData> ast;     /* 语法树 */
 
     /**
      * 构造函数
      *
-     * @param tokens 递归下降处理的 tokens
+     * @param tokens 递归下降处理的 token 流
      */
-    public Descender(ArrayList<Token> tokens) {
+    public Descender(TokenStream tokens) {
         this.tokens = tokens;
-        this.tokenId = 0;
         nextToken();
     }
 
     public TreeNode<NodeData> buildAST() {
         ast = new TreeNode<>(new NodeData("CompUnit"));
         compUnit();
-        if (!curToken.isEmpty()) error();
+        if (curToken.kind != EOF) error();
         return ast.getRoot();
     }
 
@@ -37,7 +37,7 @@ public class Descender {
      * 获取下一个 token 存储于 curToken
      */
     private void nextToken() {
-        curToken = tokens.get(tokenId++);
+        curToken = tokens.next();
     }
 
     /**
@@ -46,25 +46,26 @@ public class Descender {
 
     private void compUnit() {
         TreeNode<NodeData> node = ast;
-        while (!curToken.isEmpty()) {
-            if (curToken.equals("const")) {
-                ast = node.addChild(new NodeData("Decl"));
-                decl();
-            } else if (curToken.equals("void")) {
-                ast = node.addChild(new NodeData("FuncDef"));
-                funcDef();
-            } else if (curToken.equals("int")) {
-                try {
-                    if (tokens.get(tokenId+1).equals("(")) {
+        while (curToken.kind != EOF) {
+            switch (curToken.kind) {
+                case CONST -> {
+                    ast = node.addChild(new NodeData("Decl"));
+                    decl();
+                }
+                case VOID -> {
+                    ast = node.addChild(new NodeData("FuncDef"));
+                    funcDef();
+                }
+                case INT -> {
+                    if (tokens.peek(1).kind == LPAR) {
                         ast = node.addChild(new NodeData("FuncDef"));
                         funcDef();
                     } else {
                         ast = node.addChild(new NodeData("Decl"));
                         decl();
                     }
-                } catch (Exception e) {
-                    error();
                 }
+                default -> error();
             }
         }
     }
@@ -73,13 +74,13 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("FuncType"));
         funcType();
-        if (curToken.isIdent()) {
+        if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            if (curToken.equals("(")) {
+            if (curToken.kind == LPAR) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-                if (curToken.equals(")")) {
+                if (curToken.kind == RPAR) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                     ast = node.addChild(new NodeData("Block"));
@@ -87,7 +88,7 @@ public class Descender {
                 } else {
                     ast = node.addChild(new NodeData("FuncFParams"));
                     funcFParams();
-                    if (curToken.equals(")")) {
+                    if (curToken.kind == RPAR) {
                         ast = node.addChild(new NodeData(curToken));
                         nextToken();
                         ast = node.addChild(new NodeData("Block"));
@@ -102,7 +103,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("FuncFParam"));
         funcFParam();
-        while (curToken.equals(",")) {
+        while (curToken.kind == COMMA) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("FuncFParam"));
@@ -114,21 +115,21 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("BType"));
         btype();
-        if (curToken.isIdent()) {
+        if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            if (curToken.equals("[")) {
+            if (curToken.kind == LBRACKET) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-                if (curToken.equals("]")) {
+                if (curToken.kind == RBRACKET) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
-                    while (curToken.equals("[")) {
+                    while (curToken.kind == LBRACKET) {
                         ast = node.addChild(new NodeData(curToken));
                         nextToken();
                         ast = node.addChild(new NodeData("Expr"));
                         expr();
-                        if (curToken.equals("]")) {
+                        if (curToken.kind == RBRACKET) {
                             ast = node.addChild(new NodeData(curToken));
                             nextToken();
                         } else error();
@@ -140,10 +141,10 @@ public class Descender {
 
     private void funcType() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("int")) {
+        if (curToken.kind == INT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-        } else if (curToken.equals("void")) {
+        } else if (curToken.kind == VOID) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
         } else error();
@@ -151,16 +152,16 @@ public class Descender {
 
     private void block() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("{")) {
+        if (curToken.kind == LBRACE) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
 
-            while (!curToken.equals("}")) {
+            while (curToken.kind != RBRACE) {
                 ast = node.addChild(new NodeData("BlockItem"));
                 blockItem();
             }
 
-            if (curToken.equals("}")) {
+            if (curToken.kind == RBRACE) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
             } else error();
@@ -169,7 +170,7 @@ public class Descender {
 
     private void blockItem() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("const") || curToken.equals("int")) {
+        if (curToken.kind == CONST || curToken.kind == INT) {
             ast = node.addChild(new NodeData("Decl"));
             decl();
         } else {
@@ -180,7 +181,7 @@ public class Descender {
 
     private void decl() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("const")) {
+        if (curToken.kind == CONST) {
             ast = node.addChild(new NodeData("ConstDecl"));
             constDecl();
         } else {
@@ -191,22 +192,22 @@ public class Descender {
 
     private void constDecl() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("const")) {
+        if (curToken.kind == CONST) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("BType"));
             btype();
             ast = node.addChild(new NodeData("ConstDef"));
             constDef();
-            while (!curToken.equals(";")) {
-                if (curToken.equals(",")) {
+            while (curToken.kind != SEMICOLON) {
+                if (curToken.kind == COMMA) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                     ast = node.addChild(new NodeData("ConstDef"));
                     constDef();
                 } else error();
             }
-            if (curToken.equals(";")) {
+            if (curToken.kind == SEMICOLON) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
             } else error();
@@ -219,15 +220,15 @@ public class Descender {
         btype();
         ast = node.addChild(new NodeData("VarDef"));
         varDef();
-        while (!curToken.equals(";")) {
-            if (curToken.equals(",")) {
+        while (curToken.kind != SEMICOLON) {
+            if (curToken.kind == COMMA) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("VarDef"));
                 varDef();
             } else error();
         }
-        if (curToken.equals(";")) {
+        if (curToken.kind == SEMICOLON) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
         } else error();
@@ -235,20 +236,20 @@ public class Descender {
 
     private void varDef() {
         TreeNode<NodeData> node = ast;
-        if (curToken.isIdent()) {
+        if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            while (curToken.equals("[")) {
+            while (curToken.kind == LBRACKET) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("ConstExpr"));
                 constExp();
-                if (curToken.equals("]")) {
+                if (curToken.kind == RBRACKET) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else error();
             }
-            if (curToken.equals("=")) {
+            if (curToken.kind == ASSIGN) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("InitVal"));
@@ -259,7 +260,7 @@ public class Descender {
 
     private void btype() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("int")) {
+        if (curToken.kind == INT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
         } else error();
@@ -267,20 +268,20 @@ public class Descender {
 
     private void constDef() {
         TreeNode<NodeData> node = ast;
-        if (curToken.isIdent()) {
+        if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            while (curToken.equals("[")) {
+            while (curToken.kind == LBRACKET) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("ConstExpr"));
                 constExp();
-                if (curToken.equals("]")) {
+                if (curToken.kind == RBRACKET) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else error();
             }
-            if (curToken.equals("=")) {
+            if (curToken.kind == ASSIGN) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("ConstInitVal"));
@@ -291,22 +292,22 @@ public class Descender {
 
     private void constInitVal() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("{")) {
+        if (curToken.kind == LBRACE) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            if (curToken.equals("}")) {
+            if (curToken.kind == RBRACE) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
             } else {
                 ast = node.addChild(new NodeData("ConstInitVal"));
                 constInitVal();
-                while (curToken.equals(",")) {
+                while (curToken.kind == COMMA) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                     ast = node.addChild(new NodeData("ConstInitVal"));
                     constInitVal();
                 }
-                if (curToken.equals("}")) {
+                if (curToken.kind == RBRACE) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else error();
@@ -325,22 +326,22 @@ public class Descender {
 
     private void initVal() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("{")) {
+        if (curToken.kind == LBRACE) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            if (curToken.equals("}")) {
+            if (curToken.kind == RBRACE) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
             } else {
                 ast = node.addChild(new NodeData("InitVal"));
                 initVal();
-                while (curToken.equals(",")) {
+                while (curToken.kind == COMMA) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                     ast = node.addChild(new NodeData("InitVal"));
                     initVal();
                 }
-                if (curToken.equals("}")) {
+                if (curToken.kind == RBRACE) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else error();
@@ -351,122 +352,136 @@ public class Descender {
         }
     }
 
+    /**
+     * 以标识符开头的语句是否为赋值语句：越过 Lval 的各维下标后紧跟 '='，
+     * 前瞻只覆盖 Lval 本身，不必扫描到语句末尾
+     *
+     * @return 是否为赋值语句
+     */
+    private boolean isAssign() {
+        int k = 0;
+        while (tokens.peek(k).kind == LBRACKET) {
+            int depth = 0;
+            do {
+                Token token = tokens.peek(k++);
+                if (token.kind == LBRACKET) depth++;
+                else if (token.kind == RBRACKET) depth--;
+                else if (token.kind == SEMICOLON || token.kind == EOF) return false;
+            } while (depth > 0);
+        }
+        return tokens.peek(k).kind == ASSIGN;
+    }
+
     private void stmt() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("{")) {
-            ast = node.addChild(new NodeData("Block"));
-            block();
-        } else if (curToken.isIdent()) {
-            boolean isAligned = false;
-            try {
-                int tokenId = this.tokenId;
-                int i;
-                for (i = tokenId; i < this.tokens.size(); i++)
-                    if (this.tokens.get(i).equals(";"))
-                        break;
-                for (int j = tokenId; j <= i; j++)
-                    if (this.tokens.get(j).equals("=")) {
-                        isAligned = true;
-                        break;
+        switch (curToken.kind) {
+            case LBRACE -> {
+                ast = node.addChild(new NodeData("Block"));
+                block();
+            }
+            case IDENT -> {
+                if (isAssign()) {
+                    ast = node.addChild(new NodeData("Lval"));
+                    lval();
+                    if (curToken.kind == ASSIGN) {
+                        ast = node.addChild(new NodeData(curToken));
+                        nextToken();
+                        ast = node.addChild(new NodeData("Expr"));
+                        expr();
+                        if (curToken.kind == SEMICOLON) {
+                            ast = node.addChild(new NodeData(curToken));
+                            nextToken();
+                        } else error();
+                    } else error();
+                } else {
+                    ast = node.addChild(new NodeData("Expr"));
+                    expr();
+                    if (curToken.kind == SEMICOLON) {
+                        ast = node.addChild(new NodeData(";"));
+                        nextToken();
                     }
-            } catch (Exception e) {
-                error();
+                }
             }
-
-            if (isAligned) {
-                ast = node.addChild(new NodeData("Lval"));
-                lval();
-                if (curToken.equals("=")) {
+            case SEMICOLON -> {
+                ast = node.addChild(new NodeData(curToken));
+                nextToken();
+            }
+            case RETURN -> {
+                ast = node.addChild(new NodeData(curToken));
+                nextToken();
+                if (curToken.kind == SEMICOLON) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
+                } else {
                     ast = node.addChild(new NodeData("Expr"));
                     expr();
-                    if (curToken.equals(";")) {
+                    if (curToken.kind == SEMICOLON) {
                         ast = node.addChild(new NodeData(curToken));
                         nextToken();
                     } else error();
-                } else error();
-            } else {
-                ast = node.addChild(new NodeData("Expr"));
-                expr();
-                if (curToken.equals(";")) {
-                    ast = node.addChild(new NodeData(";"));
-                    nextToken();
                 }
             }
-        } else if (curToken.equals(";")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-        } else if (curToken.equals("return")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            if (curToken.equals(";")) {
+            case IF -> {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-            } else {
-                ast = node.addChild(new NodeData("Expr"));
-                expr();
-                if (curToken.equals(";")) {
+                if (curToken.kind == LPAR) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
+                    ast = node.addChild(new NodeData("Cond"));
+                    cond();
+                    if (curToken.kind == RPAR) {
+                        ast = node.addChild(new NodeData(curToken));
+                        nextToken();
+                        ast = node.addChild(new NodeData("Stmt"));
+                        stmt();
+                        if (curToken.kind == ELSE) {
+                            ast = node.addChild(new NodeData(curToken));
+                            nextToken();
+                            ast = node.addChild(new NodeData("Stmt"));
+                            stmt();
+                        }
+                    } else error();
                 } else error();
             }
-        } else if (curToken.equals("if")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            if (curToken.equals("(")) {
+            case WHILE -> {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-                ast = node.addChild(new NodeData("Cond"));
-                cond();
-                if (curToken.equals(")")) {
+                if (curToken.kind == LPAR) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
-                    ast = node.addChild(new NodeData("Stmt"));
-                    stmt();
-                    if (curToken.equals("else")) {
+                    ast = node.addChild(new NodeData("Cond"));
+                    cond();
+                    if (curToken.kind == RPAR) {
                         ast = node.addChild(new NodeData(curToken));
                         nextToken();
                         ast = node.addChild(new NodeData("Stmt"));
                         stmt();
-                    }
+                    } else error();
                 } else error();
-            } else error();
-        } else if (curToken.equals("while")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            if (curToken.equals("(")) {
+            }
+            case BREAK -> {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-                ast = node.addChild(new NodeData("Cond"));
-                cond();
-                if (curToken.equals(")")) {
+                if (curToken.kind == SEMICOLON) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
-                    ast = node.addChild(new NodeData("Stmt"));
-                    stmt();
                 } else error();
-            } else error();
-        } else if (curToken.equals("break")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            if (curToken.equals(";")) {
-                ast = node.addChild(new NodeData(curToken));
-                nextToken();
-            } else error();
-        } else if (curToken.equals("continue")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            if (curToken.equals(";")) {
+            }
+            case CONTINUE -> {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-            } else error();
-        } else {
-            ast = node.addChild(new NodeData("Expr"));
-            expr();
-            if (curToken.equals(";")) {
-                ast = node.addChild(new NodeData(";"));
-                nextToken();
+                if (curToken.kind == SEMICOLON) {
+                    ast = node.addChild(new NodeData(curToken));
+                    nextToken();
+                } else error();
+            }
+            default -> {
+                ast = node.addChild(new NodeData("Expr"));
+                expr();
+                if (curToken.kind == SEMICOLON) {
+                    ast = node.addChild(new NodeData(";"));
+                    nextToken();
+                }
             }
         }
     }
@@ -481,7 +496,16 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("MulExpr"));
         mulExpr();
-        while (curToken.equals("+") || curToken.equals("-")) {
+        addExprRest(node);
+    }
+
+    /**
+     * 解析 AddExpr 第一个 MulExpr 之后的其余项
+     *
+     * @param node AddExpr节点
+     */
+    private void addExprRest(TreeNode<NodeData> node) {
+        while (curToken.kind == PLUS || curToken.kind == MINUS) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("MulExpr"));
@@ -493,7 +517,16 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("UnaryExpr"));
         unaryExpr();
-        while (curToken.equals("*") || curToken.equals("/") || curToken.equals("%")) {
+        mulExprRest(node);
+    }
+
+    /**
+     * 解析 MulExpr 第一个 UnaryExpr 之后的其余项
+     *
+     * @param node MulExpr节点
+     */
+    private void mulExprRest(TreeNode<NodeData> node) {
+        while (curToken.kind == MULT || curToken.kind == DIV || curToken.kind == MOD) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("UnaryExpr"));
@@ -501,52 +534,78 @@ public class Descender {
         }
     }
 
+    /**
+     * 前缀运算符与括号组成的嵌套链不随层数递归：先沿链下降到最内层的操作数，
+     * 再由内向外补全各层括号中其余的乘除、加减项与右括号，建出的树与逐层递归时相同
+     */
     private void unaryExpr() {
+        ArrayDeque<TreeNode<NodeData>> parens = new ArrayDeque<>();     /* 尚未闭合的各层 PrimaryExpr */
         TreeNode<NodeData> node = ast;
-        if (curToken.isIdent() && tokens.get(tokenId).equals("(")) {
+        while (true) {
+            if (curToken.kind == PLUS || curToken.kind == MINUS || curToken.kind == NOT) {
+                ast = node.addChild(new NodeData("UnaryOp"));
+                unaryOp();
+                node = node.addChild(new NodeData("UnaryExpr"));
+            } else if (curToken.kind == LPAR) {
+                TreeNode<NodeData> primary = node.addChild(new NodeData("PrimaryExpr"));
+                primary.addChild(new NodeData(curToken));
+                nextToken();
+                node = primary.addChild(new NodeData("Expr"))
+                        .addChild(new NodeData("AddExpr"))
+                        .addChild(new NodeData("MulExpr"))
+                        .addChild(new NodeData("UnaryExpr"));
+                parens.push(primary);
+            } else break;
+        }
+        ast = node;
+        operand();
+        while (!parens.isEmpty()) {
+            TreeNode<NodeData> primary = parens.pop();
+            TreeNode<NodeData> add = primary.getChildAt(1).getChildAt(0);
+            mulExprRest(add.getChildAt(0));
+            addExprRest(add);
+            if (curToken.kind == RPAR) {
+                primary.addChild(new NodeData(curToken));
+                nextToken();
+            } else error();
+        }
+    }
+
+    /**
+     * 解析前缀运算符与括号链最内层的操作数：函数调用、数字或 Lval
+     */
+    private void operand() {
+        TreeNode<NodeData> node = ast;
+        if (curToken.kind == IDENT && tokens.peek(0).kind == LPAR) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            if (curToken.equals("(")) {
+            if (curToken.kind == LPAR) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
-                if (curToken.equals(")")) {
+                if (curToken.kind == RPAR) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else {
                     ast = node.addChild(new NodeData("FuncRParams"));
                     funcRParams();
-                    if (curToken.equals(")")) {
+                    if (curToken.kind == RPAR) {
                         ast = node.addChild(new NodeData(curToken));
                         nextToken();
                     } else error();
                 }
             } else error();
-        } else if (curToken.equals("(") || curToken.isNumber() || curToken.isIdent()) {
+        } else if (curToken.kind == NUMBER || curToken.kind == IDENT) {
             ast = node.addChild(new NodeData("PrimaryExpr"));
             primaryExpr();
-        } else if (curToken.equals("+") || curToken.equals("-") || curToken.equals("!")) {
-            ast = node.addChild(new NodeData("UnaryOp"));
-            unaryOp();
-            ast = node.addChild(new NodeData("UnaryExpr"));
-            unaryExpr();
         } else error();
     }
 
     private void primaryExpr() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("(")) {
-            ast = node.addChild(new NodeData(curToken));
-            nextToken();
-            ast = node.addChild(new NodeData("Expr"));
-            expr();
-            if (curToken.equals(")")) {
-                ast = node.addChild(new NodeData(curToken));
-                nextToken();
-            } else error();
-        } else if (curToken.isNumber()) {
+        if (curToken.kind == NUMBER) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-        } else if (curToken.isIdent()) {
+        } else if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData("Lval"));
             lval();
         } else error();
@@ -554,7 +613,7 @@ public class Descender {
 
     private void unaryOp() {
         TreeNode<NodeData> node = ast;
-        if (curToken.equals("+") || curToken.equals("-") || curToken.equals("!")) {
+        if (curToken.kind == PLUS || curToken.kind == MINUS || curToken.kind == NOT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
         } else error();
@@ -564,7 +623,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("Expr"));
         expr();
-        while (curToken.equals(",")) {
+        while (curToken.kind == COMMA) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("Expr"));
@@ -574,15 +633,15 @@ public class Descender {
 
     private void lval() {
         TreeNode<NodeData> node = ast;
-        if (curToken.isIdent()) {
+        if (curToken.kind == IDENT) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
-            while (curToken.equals("[")) {
+            while (curToken.kind == LBRACKET) {
                 ast = node.addChild(new NodeData(curToken));
                 nextToken();
                 ast = node.addChild(new NodeData("Expr"));
                 expr();
-                if (curToken.equals("]")) {
+                if (curToken.kind == RBRACKET) {
                     ast = node.addChild(new NodeData(curToken));
                     nextToken();
                 } else error();
@@ -600,7 +659,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("AddExpr"));
         addExpr();
-        while (curToken.equals(">") || curToken.equals("<") || curToken.equals("<=") || curToken.equals(">=")) {
+        while (curToken.kind == GT || curToken.kind == LT || curToken.kind == LEQ || curToken.kind == GEQ) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("AddExpr"));
@@ -612,7 +671,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("RelExpr"));
         relExpr();
-        while (curToken.equals("==") || curToken.equals("!=")) {
+        while (curToken.kind == EQ || curToken.kind == NEQ) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("RelExpr"));
@@ -624,7 +683,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("EqExpr"));
         eqExpr();
-        while (curToken.equals("&&")) {
+        while (curToken.kind == AND) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("EqExpr"));
@@ -636,7 +695,7 @@ public class Descender {
         TreeNode<NodeData> node = ast;
         ast = node.addChild(new NodeData("LAndExpr"));
         lAndExpr();
-        while (curToken.equals("||")) {
+        while (curToken.kind == OR) {
             ast = node.addChild(new NodeData(curToken));
             nextToken();
             ast = node.addChild(new NodeData("LAndExpr"));
@@ -1,6 +1,8 @@
 package compiler.parser.ast;
 
+import compiler.ir.Value;
 import compiler.lexer.Token;
+import compiler.semantics.symtable.Item;
 
 public class NodeData {
 
@@ -8,11 +10,13 @@ public class NodeData {
         VN, VT
     }
     public SymType symType;
-    public int regIdx;
+    public Value irValue;       /* 节点对应的 IR 值 */
+    public Item item;           /* Lval 与函数调用 UnaryExpr 中标识符绑定的符号表记录 */
     public String name;
     public String value;
+    public int id = -1;         /* 标识符的编号 */
     public Integer intValue;
-    public Integer dimension;
+    public int dimension;
 
     public NodeData() {
         this.name = "";
@@ -26,8 +30,9 @@ public class NodeData {
         this.dimension = 0;
     }
     public NodeData(Token token) {
-        this.name = token.symbol;
-        this.value = token.value;
+        this.name = token.kind.symbol;
+        this.value = token.getValue();
+        this.id = token.id;
         this.symType = SymType.VT;
         this.dimension = 0;
     }
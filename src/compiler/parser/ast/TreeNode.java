@@ -1,6 +1,11 @@
 package compiler.parser.ast;
 
-import java.util.LinkedList;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class TreeNode<T> {
@@ -15,10 +20,15 @@ public class TreeNode<T> {
     public TreeNode<T> parent;
 
     /**
-     * 子节点，叶子节点没有子节点
+     * 子节点，叶子节点没有子节点；叶子共用不可修改的空表，添加第一个子节点时才分配
      */
     public List<TreeNode<T>> children;
 
+    /**
+     * 节点所在层数，根为 0，添加子节点时由父节点加一得到
+     */
+    private int depth;
+
     /**
      * 构造函数
      *
@@ -26,7 +36,7 @@ public class TreeNode<T> {
      */
     public TreeNode(T data) {
         this.data = data;
-        this.children = new LinkedList<>();
+        this.children = Collections.emptyList();
     }
 
     /**
@@ -53,6 +63,9 @@ public class TreeNode<T> {
     public TreeNode<T> addChild(T child) {
         TreeNode<T> childNode = new TreeNode<>(child);
         childNode.parent = this;
+        childNode.depth = this.depth + 1;
+        if (this.children.isEmpty())
+            this.children = new ArrayList<>(4);
         this.children.add(childNode);
         return childNode;
     }
@@ -63,8 +76,7 @@ public class TreeNode<T> {
      * @return 节点所在层数
      */
     public int getLevel() {
-        if (this.isRoot())  return 0;
-        else return parent.getLevel()+1;
+        return depth;
     }
 
     /**
@@ -93,32 +105,38 @@ public class TreeNode<T> {
     }
 
     /**
-     * 获取当前节点延申的叶子节点
+     * 树的可视化
      *
-     * @return 节点链表
+     * @return 字符串形式的树
      */
-    public List<TreeNode<T>> getLeaves() {
-        List<TreeNode<T>> leaves = new LinkedList<>();
-        if (this.isLeaf())
-            leaves.add(this);
-        for (TreeNode<T> child : this.children)
-            leaves.addAll(child.getLeaves());
-        return leaves;
+    public String getTree() {
+        StringWriter str = new StringWriter();
+        PrintWriter writer = new PrintWriter(str);
+        printTree(writer);
+        writer.flush();
+        return str.toString();
     }
 
     /**
-     * 树的可视化
+     * 将可视化的树直接写入输出，用显式栈做先序遍历，树再深也不会栈溢出
      *
-     * @return 字符串形式的树
+     * @param writer 输出目标
      */
-    public String getTree() {
-        StringBuilder str = new StringBuilder();
-        TreeNode<T> node = this;
-        str.append("\t".repeat(node.getLevel())).append(node.toString()).append("\n");
-        for (TreeNode<T> child : node.children) {
-            str.append(child.getTree());
+    public void printTree(PrintWriter writer) {
+        char[] tabs = new char[0];          /* 缩进用的制表符 */
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            TreeNode<T> node = stack.pop();
+            if (node.depth > tabs.length) {
+                tabs = new char[Math.max(node.depth, tabs.length * 2)];
+                Arrays.fill(tabs, '\t');
+            }
+            writer.write(tabs, 0, node.depth);
+            writer.append(node.toString()).append('\n');
+            for (int i = node.children.size()-1; i >= 0; i--)
+                stack.push(node.children.get(i));
         }
-        return str.toString();
     }
 
     @Override
@@ -7,7 +7,9 @@ import compiler.semantics.symtable.Item.IdentType;
 import compiler.semantics.symtable.Item.ValueType;
 import compiler.semantics.symtable.SymTable;
 
+import java.util.IdentityHashMap;
 import java.util.Stack;
+import java.util.function.Predicate;
 
 import static compiler.exception.CompileException.error;
 
@@ -20,6 +22,12 @@ public class Analyzer {
 
     public Stack<Integer> blockStack;
 
+    public int funcRParamsDepth;    /* 当前遍历位置所在的函数实参列表层数，由遍历方维护 */
+
+    /* 表达式节点的可求值判定结果，自底向上计算一次后复用；符号表变化时清空 */
+    private final IdentityHashMap<TreeNode<NodeData>, Boolean> cerValCache = new IdentityHashMap<>();
+    private final IdentityHashMap<TreeNode<NodeData>, Boolean> constInitCache = new IdentityHashMap<>();
+
     public Analyzer(TreeNode<NodeData> tree, SymTable symTable) {
         this.ast = tree.getRoot();
         this.symTable = symTable;
@@ -40,12 +48,42 @@ public class Analyzer {
                 blockStack.push(curBlockId);
             } else if (node.data.value.equals("}")) {
                 symTable.setBlockInvalid(curBlockId);
+                symbolsChanged();
                 blockStack.pop();
                 curBlockId = blockStack.peek();
             }
         }
     }
 
+    /**
+     * 符号表中标识符的有效性或属性发生变化，之前的判定结果作废
+     */
+    private void symbolsChanged() {
+        cerValCache.clear();
+        constInitCache.clear();
+    }
+
+    /**
+     * 插入新标识符
+     */
+    private Item insert(String name, int blockId, IdentType iType, ValueType vType) {
+        symbolsChanged();
+        return symTable.insert(name, blockId, iType, vType);
+    }
+
+    /**
+     * 将 Lval 或函数调用 UnaryExpr 节点的标识符解析为符号表记录，结果保存在节点上，
+     * 之后的检查与生成直接读取，不再重复查找
+     *
+     * @param node Lval或UnaryExpr节点
+     * @return 符号表记录，未定义时为空
+     */
+    public Item bind(TreeNode<NodeData> node) {
+        if (node.data.item == null)
+            node.data.item = symTable.getItem(node.getChildAt(0).data.id);
+        return node.data.item;
+    }
+
     /**
      * 登记函数定义到符号表
      *
@@ -54,14 +92,14 @@ public class Analyzer {
     public Item filFuncDef(TreeNode<NodeData> node) {
         TreeNode<NodeData> ident;
         ident = node.getChildAt(1);
-        if (!symTable.isDeclAvail(ident.data.value, curBlockId)) // 若同区块内该变量名被用，则报错
+        if (!symTable.isDeclAvail(ident.data.id, curBlockId)) // 若同区块内该变量名被用，则报错
             error();
         Item.ValueType vtype;
         if (node.getChildAt(0).getChildAt(0).data.name.equals("Int"))
             vtype = Item.ValueType.INT;
         else
             vtype = Item.ValueType.VOID;
-        return symTable.insert(ident.data.value, curBlockId, IdentType.FUNC, vtype);
+        return insert(ident.data.value, curBlockId, IdentType.FUNC, vtype);
     }
 
     /**
@@ -83,9 +121,9 @@ public class Analyzer {
     public Item filFuncFParam(TreeNode<NodeData> node) {
         TreeNode<NodeData> _ident = node.getChildAt(1);
         if (node.children.size() == 2)
-            return symTable.insert(_ident.data.value, curBlockId+1, IdentType.PARAM, ValueType.INT);
+            return insert(_ident.data.value, curBlockId+1, IdentType.PARAM, ValueType.INT);
         else
-            return symTable.insert(_ident.data.value, curBlockId+1, IdentType.PARAM, ValueType.ARRAY);
+            return insert(_ident.data.value, curBlockId+1, IdentType.PARAM, ValueType.ARRAY);
     }
 
     /**
@@ -95,11 +133,13 @@ public class Analyzer {
      */
     public Item filConstValDef(TreeNode<NodeData> node) {
         TreeNode<NodeData> ident = node.getChildAt(0);
-        if (!symTable.isDeclAvail(ident.data.value, curBlockId)) error();
-        Item item = symTable.insert(ident.data.value, curBlockId, IdentType.CONST, Item.ValueType.INT);
+        if (!symTable.isDeclAvail(ident.data.id, curBlockId)) error();
+        Item item = insert(ident.data.value, curBlockId, IdentType.CONST, Item.ValueType.INT);
         // 查询其叶子节点判断是否有值，若为全局变量则一定有初始化值
-        if (node.children.size() == 3 && hasCerVal(node.getChildAt(2)) || curBlockId == 0)
+        if (node.children.size() == 3 && hasCerVal(node.getChildAt(2)) || curBlockId == 0) {
             item.hasCerVal = true;
+            symbolsChanged();
+        }
         return item;
     }
 
@@ -110,8 +150,8 @@ public class Analyzer {
      */
     public Item filConstArrayDef(TreeNode<NodeData> node) {
         TreeNode<NodeData> ident = node.getChildAt(0);
-        if (!symTable.isDeclAvail(ident.data.value, curBlockId)) error();
-        return symTable.insert(ident.data.value, curBlockId, IdentType.CONST, ValueType.ARRAY);
+        if (!symTable.isDeclAvail(ident.data.id, curBlockId)) error();
+        return insert(ident.data.value, curBlockId, IdentType.CONST, ValueType.ARRAY);
     }
 
     /**
@@ -121,8 +161,8 @@ public class Analyzer {
      */
     public Item filVarArrayDef(TreeNode<NodeData> node) {
         TreeNode<NodeData> ident = node.getChildAt(0);
-        if (!symTable.isDeclAvail(ident.data.value, curBlockId)) error();
-        return symTable.insert(ident.data.value, curBlockId, IdentType.VAL, ValueType.ARRAY);
+        if (!symTable.isDeclAvail(ident.data.id, curBlockId)) error();
+        return insert(ident.data.value, curBlockId, IdentType.VAL, ValueType.ARRAY);
     }
 
     /**
@@ -133,10 +173,12 @@ public class Analyzer {
      */
     public Item filVarValDef(TreeNode<NodeData> node) {
         TreeNode<NodeData> ident = node.getChildAt(0);
-        if (!symTable.isDeclAvail(ident.data.value, curBlockId)) error();
-        Item item = symTable.insert(ident.data.value, curBlockId, IdentType.VAL, Item.ValueType.INT);
-        if (node.children.size() == 3 && hasCerVal(node.getChildAt(2)) || curBlockId == 0)
+        if (!symTable.isDeclAvail(ident.data.id, curBlockId)) error();
+        Item item = insert(ident.data.value, curBlockId, IdentType.VAL, Item.ValueType.INT);
+        if (node.children.size() == 3 && hasCerVal(node.getChildAt(2)) || curBlockId == 0) {
             item.hasCerVal = true;
+            symbolsChanged();
+        }
         return item;
     }
 
@@ -147,13 +189,7 @@ public class Analyzer {
      * @return 是否有确定值
      */
     public boolean hasCerVal(TreeNode<NodeData> node) {
-        for (TreeNode<NodeData> leaf : node.getLeaves())
-            if (leaf.data.name.equals("Ident")) {
-                Item item = symTable.getItem(leaf.data.value);
-                if (item == null || !item.hasCerVal)
-                    return false;
-            }
-        return true;
+        return allIdents(node, item -> item.hasCerVal, cerValCache);
     }
 
     /**
@@ -163,13 +199,35 @@ public class Analyzer {
      * @return 是否满足
      */
     public boolean isConstInitVal(TreeNode<NodeData> node) {
-        for (TreeNode<NodeData> leaf : node.getLeaves())
-            if (leaf.data.name.equals("Ident")) {
-                Item item = symTable.getItem(leaf.data.value);
-                if (item == null || item.iType != IdentType.CONST || !item.hasCerVal)
-                    return false;
+        return allIdents(node, item -> item.iType == IdentType.CONST && item.hasCerVal, constInitCache);
+    }
+
+    /**
+     * 判断节点延申的所有标识符叶节点是否都已定义且满足条件；
+     * 内部节点的结果由子节点合并得到并缓存，嵌套表达式在各层的判定只需计算一次
+     *
+     * @param node 节点
+     * @param cond 标识符需满足的条件
+     * @param cache 内部节点的判定结果
+     * @return 是否满足
+     */
+    private boolean allIdents(TreeNode<NodeData> node, Predicate<Item> cond,
+                              IdentityHashMap<TreeNode<NodeData>, Boolean> cache) {
+        if (node.isLeaf()) {
+            if (!node.data.name.equals("Ident")) return true;
+            Item item = bind(node.parent);
+            return item != null && cond.test(item);
+        }
+        Boolean cached = cache.get(node);
+        if (cached != null) return cached;
+        boolean result = true;
+        for (TreeNode<NodeData> child : node.children)
+            if (!allIdents(child, cond, cache)) {
+                result = false;
+                break;
             }
-        return true;
+        cache.put(node, result);
+        return result;
     }
 
     /**
@@ -179,8 +237,7 @@ public class Analyzer {
      * @return 是否符合语义
      */
     public boolean isNoArrayLvalValid(TreeNode<NodeData> node) {
-        String ident = node.getChildAt(0).data.value;
-        Item item = symTable.getItem(ident);
+        Item item = bind(node);
         if (node.parent.data.name.equals("Stmt"))
             return item != null && (item.iType == IdentType.VAL || item.iType == IdentType.PARAM);
         else
@@ -189,19 +246,12 @@ public class Analyzer {
     }
 
     /**
-     * 判断某节点是否为函数右参数延申节点
+     * 判断当前遍历位置是否处于函数调用的实参中
      *
-     * @param node Lval节点
      * @return 是或否
      */
-    public boolean belFuncRParams(TreeNode<NodeData> node) {
-        TreeNode<NodeData> _temp = node;
-        while (!_temp.data.name.equals("CompUnit")) {
-            if (_temp.data.name.equals("FuncRParams"))
-                return true;
-            _temp = _temp.parent;
-        }
-        return false;
+    public boolean belFuncRParams() {
+        return funcRParamsDepth > 0;
     }
 
     /**
@@ -212,8 +262,7 @@ public class Analyzer {
      */
     public boolean isArrayLvalValid(TreeNode<NodeData> node) {
         boolean isValid;
-        String ident = node.getChildAt(0).data.value;
-        Item item = symTable.getItem(ident);
+        Item item = bind(node);
         if (node.parent.data.name.equals("Stmt"))
             isValid = (item != null && (item.iType == IdentType.VAL || item.iType == IdentType.PARAM)
                     && item.vType == ValueType.ARRAY);
@@ -226,29 +275,10 @@ public class Analyzer {
         for (TreeNode<NodeData> child : node.children)
             if (child.data.name.equals("Expr"))
                 cnt_exp++;
-        String identName = node.getChildAt(0).data.value;
-        Item arrayItem = symTable.getItem(identName);
-        if (!belFuncRParams(node) && arrayItem.arraySize.size() != cnt_exp) isValid = false;
+        if (!belFuncRParams() && item.arraySize.size() != cnt_exp) isValid = false;
         return isValid;
     }
 
-    /**
-     * 判断Lval节点作为数组被调用时，该变量为Int还是Array
-     *
-     * @param node Lval节点
-     * @return Int或Array
-     */
-    public ValueType arrayLvalType(TreeNode<NodeData> node) {
-        int _expCnt = 0;
-        for (TreeNode<NodeData> child : node.children) {
-            if (child.data.name.equals("Expr"))
-                _expCnt += 1;
-        }
-        Item _arrayItem = symTable.getItem(node.getChildAt(0).data.value);
-        if (_arrayItem.arraySize.size() == _expCnt) return ValueType.INT;
-        else return ValueType.ARRAY;
-    }
-
     /**
      * 判断函数调用是否合法，即函数是否定义，以及参数是否正确
      *
@@ -256,9 +286,8 @@ public class Analyzer {
      * @return 是否合法
      */
     public boolean isFuncCallValid(TreeNode<NodeData> node) {
-        String ident = node.getChildAt(0).data.value;
         // 判断函数是否定义
-        Item item = symTable.getItem(ident);
+        Item item = bind(node);
         if (item == null || item.iType != IdentType.FUNC)
             return false;
         // 判断函数参数个数是否正确
@@ -267,9 +296,8 @@ public class Analyzer {
     }
 
     public boolean isFuncParamValid(TreeNode<NodeData> node) {
-        String ident = node.getChildAt(0).data.value;
         // 判断函数是否定义
-        Item item = symTable.getItem(ident);
+        Item item = bind(node);
         if (item == null || item.iType != IdentType.FUNC)
             return false;
         // 判断函数参数个数是否正确
@@ -0,0 +1,489 @@
+package compiler.semantics;
+
+import compiler.parser.ast.NodeData;
+import compiler.parser.ast.TreeNode;
+import compiler.semantics.symtable.Item;
+import compiler.semantics.symtable.SymTable;
+
+import java.util.ArrayList;
+
+import static compiler.exception.CompileException.error;
+
+/**
+ * 语义分析：遍历语法树建立符号表并完成全部语义检查，结果标注在语法树上：
+ * 定义与引用节点的 item 为对应的符号表记录，表达式节点的 dimension 为其数组维数，
+ * 可在编译期求值的节点的 intValue 为其值，数组记录的 arraySize 为各维长度。
+ * 代码生成只读取这些标注，不再访问符号表
+ */
+public class Checker {
+
+    private final TreeNode<NodeData> ast;
+    private final SymTable symTable;
+    private final Analyzer analyzer;
+
+    private int loopDepth;                      /* 所在 while 语句的层数 */
+    private ArrayList<Integer> arrayShape;      /* 正在检查初始值的数组的各维长度 */
+
+    public Checker(TreeNode<NodeData> tree) {
+        this.ast = tree;
+        this.symTable = new SymTable();
+        this.analyzer = new Analyzer(ast, symTable);
+    }
+
+    public SymTable getSymTable() {
+        return this.symTable;
+    }
+
+    /**
+     * 检查整棵语法树，出错时直接报错退出
+     */
+    public void check() {
+        visit(ast);
+    }
+
+    private void visit(TreeNode<NodeData> node) {
+        analyzer.handleBlock(node);
+        switch (node.data.name) {
+            case "CompUnit" -> visitCompUnit(node);
+            case "FuncDef" -> visitFuncDef(node);
+            case "FuncFParams" -> visitFuncFParams(node);
+            case "FuncFParam" -> visitFuncFParam(node);
+            case "Block" -> visitBlock(node);
+            case "ConstDef" -> visitConstDef(node);
+            case "ConstInitVal" -> visitConstInitVal(node);
+            case "ConstExpr" -> visitConstExp(node);
+            case "VarDef" -> visitVarDef(node);
+            case "InitVal" -> visitInitVal(node);
+            case "Stmt" -> visitStmt(node);
+            case "Expr" -> visitExpr(node);
+            case "AddExpr", "MulExpr" -> visitOperaExpr(node);
+            case "UnaryExpr" -> visitUnaryExpr(node);
+            case "PrimaryExpr" -> visitPrimExpr(node);
+            case "FuncRParams" -> visitFuncRParams(node);
+            case "Lval" -> visitLval(node);
+            case "RelExpr", "EqExpr" -> visitCmpExpr(node);
+            default -> {
+                for (TreeNode<NodeData> child : node.children)
+                    visit(child);
+            }
+        }
+    }
+
+    private void visitCompUnit(TreeNode<NodeData> node) {
+        // 程序中必须存在且仅存在一个标识为 main 的 FuncDef
+        int _mainCount = 0;
+        for (TreeNode<NodeData> child : node.children) {
+            if (child.data.name.equals("FuncDef") && child.getChildAt(1).data.value.equals("main"))
+                _mainCount += 1;
+        }
+        if (_mainCount != 1) error();
+
+        for (TreeNode<NodeData> child : node.children)
+            visit(child);
+    }
+
+    private Item funcNewItem;
+
+    private void visitFuncDef(TreeNode<NodeData> node) {
+        funcNewItem = analyzer.filFuncDef(node);
+        node.data.item = funcNewItem;
+
+        // 程序中必须存在且仅存在一个标识为 main、无参数、返回类型为 int 的 FuncDef
+        if (node.getChildAt(1).data.value.equals("main"))
+            if (node.children.size() != 5 || !node.getChildAt(0).getChildAt(0).data.value.equals("int"))
+                error();
+
+        for (TreeNode<NodeData> child : node.children)
+            if (child.data.name.equals("FuncFParams") || child.data.name.equals("Block"))
+                visit(child);
+    }
+
+    private void visitFuncFParams(TreeNode<NodeData> node) {
+        for (TreeNode<NodeData> child : node.children)
+            if (child.data.name.equals("FuncFParam"))
+                visit(child);
+    }
+
+    private void visitFuncFParam(TreeNode<NodeData> node) {
+        Item _item = analyzer.filFuncFParam(node);
+        node.data.item = _item;
+        funcNewItem.funcParams.add(_item); // 记录函数参数列表
+        if (_item.vType == Item.ValueType.ARRAY) {
+            _item.arraySize.add(0);
+            for (TreeNode<NodeData> child : node.children) {
+                if (child.data.name.equals("Expr")) {
+                    // 函数形参数组的尺寸要求可求值的常量表达式
+                    if (!analyzer.isConstInitVal(child)) error();
+                    visit(child);
+                    _item.arraySize.add(child.data.intValue);
+                }
+            }
+        }
+    }
+
+    private void visitBlock(TreeNode<NodeData> node) {
+        for (TreeNode<NodeData> child : node.children) {
+            switch (child.data.value) {
+                case "{", "}" -> analyzer.handleBlock(child);
+                default -> visit(child);
+            }
+        }
+    }
+
+    private void visitConstDef(TreeNode<NodeData> node) {
+        TreeNode<NodeData> ident = node.getChildAt(0);
+        if (!symTable.isDeclAvail(ident.data.id, analyzer.curBlockId)) // 若同区块内该变量名被用，则报错
+            error();
+
+        if (node.children.size() == 3) visitConstValDef(node);
+        else visitConstArrayDef(node);
+    }
+
+    private void visitConstValDef(TreeNode<NodeData> node) {
+        Item declItem = analyzer.filConstValDef(node);
+        node.data.item = declItem;
+        visit(node.getChildAt(2));
+        node.data.intValue = node.getChildAt(2).data.intValue;
+        declItem.intValue = node.getChildAt(2).data.intValue;
+    }
+
+    private void visitConstArrayDef(TreeNode<NodeData> node) {
+        Item declItem = analyzer.filConstArrayDef(node);
+        node.data.item = declItem;
+        visitArrayDef(node, declItem, "ConstInitVal");
+    }
+
+    /**
+     * 数组定义：各维长度须为非负常量，再检查初始值
+     *
+     * @param node ConstDef或VarDef节点
+     * @param declItem 数组的符号表记录
+     * @param initName 初始值节点名
+     */
+    private void visitArrayDef(TreeNode<NodeData> node, Item declItem, String initName) {
+        boolean hasInit = false;
+        for (TreeNode<NodeData> child : node.children) {
+            if (child.data.name.equals("ConstExpr")) {
+                visit(child);
+                if (child.data.intValue < 0) error();
+                declItem.arraySize.add(child.data.intValue);
+            }
+            if (child.data.name.equals(initName))
+                hasInit = true;
+        }
+        this.arrayShape = declItem.arraySize;
+        if (hasInit)
+            visit(node.getChildAt(node.children.size()-1));
+    }
+
+    private void visitConstInitValNonArray(TreeNode<NodeData> node) {
+        if (!analyzer.isConstInitVal(node))
+            error();
+        visit(node.getChildAt(0));
+        node.data.intValue = node.getChildAt(0).data.intValue;
+    }
+
+    private int initDepth(TreeNode<NodeData> node) {
+        int depth = 0;
+        TreeNode<NodeData> temp = node;
+        while (!temp.parent.getChildAt(0).data.name.equals("Ident")) {
+            temp = temp.parent;
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * 初始值列表中未给出的元素个数，列表过长时为负
+     *
+     * @param node 初始值列表节点
+     * @param cnt 给出的子列表个数
+     * @return 隐式初始化为 0 的元素个数
+     */
+    private int fillEmptySize(TreeNode<NodeData> node, int cnt) {
+        int depth = initDepth(node);
+        int temp = 1;
+        for (int i = depth+1; i < this.arrayShape.size(); i++)
+            temp *= this.arrayShape.get(i);
+        try {
+            return (this.arrayShape.get(depth)-cnt) * temp;
+        } catch (Exception e) {
+            error();
+            return 0;
+        }
+    }
+
+    /**
+     * 数组初始值：元素须位于最内层，各层列表不能超过该维长度
+     *
+     * @param node ConstInitVal或InitVal节点
+     * @param elemName 元素表达式节点名
+     */
+    private void visitInitList(TreeNode<NodeData> node, String elemName) {
+        if (node.getChildAt(0).data.name.equals(elemName)) {
+            if (initDepth(node) != this.arrayShape.size()) error();
+            visit(node.getChildAt(0));
+        } else {
+            int cnt = 0;
+            for (TreeNode<NodeData> child : node.children) {
+                if (child.data.name.equals(node.data.name)) {
+                    cnt++;
+                    visitInitArray(child);
+                }
+            }
+            if (fillEmptySize(node, cnt) < 0) error();
+        }
+    }
+
+    private void visitInitArray(TreeNode<NodeData> node) {
+        if (node.data.name.equals("ConstInitVal")) {
+            if (analyzer.curBlockId == 0) {
+                if (!analyzer.isConstInitVal(node)) error();
+            } else {
+                if (!analyzer.hasCerVal(node)) error();
+            }
+            visitInitList(node, "ConstExpr");
+        } else {
+            visitInitList(node, "Expr");
+        }
+    }
+
+    private void visitConstInitVal(TreeNode<NodeData> node) {
+        if (node.children.size() == 1)
+            visitConstInitValNonArray(node);
+        else
+            visitInitArray(node);
+    }
+
+    private void visitConstExp(TreeNode<NodeData> node) {
+        if (!analyzer.isConstInitVal(node))
+            error();
+        visit(node.getChildAt(0));
+        node.data.intValue = node.getChildAt(0).data.intValue;
+        node.data.dimension = node.getChildAt(0).data.dimension;
+    }
+
+    private void visitVarValDef(TreeNode<NodeData> node) {
+        Item declItem = analyzer.filVarValDef(node);
+        node.data.item = declItem;
+
+        if (node.children.size() >= 3) {
+            visit(node.getChildAt(2));
+            declItem.intValue = node.getChildAt(2).data.intValue;
+        } else if (declItem.blockId == 0) {
+            declItem.intValue = 0;
+        }
+        node.data.intValue = declItem.intValue;
+    }
+
+    private void visitVarArrayDef(TreeNode<NodeData> node) {
+        Item declItem = analyzer.filVarArrayDef(node);
+        node.data.item = declItem;
+        visitArrayDef(node, declItem, "InitVal");
+    }
+
+    private void visitVarDef(TreeNode<NodeData> node) {
+        boolean isArray = false;
+        for (TreeNode<NodeData> child : node.children)
+            if (child.data.value.equals("[")) {
+                isArray = true;
+                break;
+            }
+        if (isArray) visitVarArrayDef(node);
+        else visitVarValDef(node);
+    }
+
+    private void visitInitVal(TreeNode<NodeData> node) {
+        if (analyzer.curBlockId == 0 && !analyzer.isConstInitVal(node))
+            error();
+
+        if (node.children.size() == 1) {
+            visit(node.getChildAt(0));
+            node.data.intValue = node.getChildAt(0).data.intValue;
+        } else {
+            visitInitArray(node);
+        }
+    }
+
+    private void visitStmt(TreeNode<NodeData> node) {
+        switch (node.children.size()) {
+            case 2 -> {
+                switch (node.getChildAt(0).data.name) {
+                    case "Break", "Continue" -> {
+                        if (loopDepth == 0) error();
+                    }
+                    case "Expr" -> {
+                        visit(node.getChildAt(0));
+                        node.data.intValue = node.getChildAt(0).data.intValue;
+                        node.data.dimension = node.getChildAt(0).data.dimension;
+                    }
+                }
+            }
+            case 3 -> {
+                if (node.getChildAt(0).data.name.equals("Return"))
+                    visit(node.getChildAt(1));
+            }
+            case 5 -> {
+                boolean isWhile = node.getChildAt(0).data.name.equals("While");
+                visit(node.getChildAt(2));
+                if (isWhile) loopDepth++;
+                visit(node.getChildAt(4));
+                if (isWhile) loopDepth--;
+            }
+            case 7 -> {
+                visit(node.getChildAt(2));
+                visit(node.getChildAt(4));
+                visit(node.getChildAt(6));
+            }
+            default -> {
+                for (TreeNode<NodeData> child : node.children)
+                    visit(child);
+            }
+        }
+    }
+
+    private void visitExpr(TreeNode<NodeData> node) {
+        for (TreeNode<NodeData> child : node.children)
+            visit(child);
+        node.data.intValue = node.getChildAt(0).data.intValue;
+        node.data.dimension = node.getChildAt(0).data.dimension;
+    }
+
+    /**
+     * 加法与乘法表达式：全局作用域中或操作数都有确定值时在编译期求值
+     *
+     * @param node AddExpr或MulExpr节点
+     */
+    private void visitOperaExpr(TreeNode<NodeData> node) {
+        boolean computed = analyzer.curBlockId == 0 || analyzer.hasCerVal(node);
+        visit(node.getChildAt(0));
+        Integer v1 = node.getChildAt(0).data.intValue;
+        Integer v2 = v1;
+        for (int i = 2; i < node.children.size(); i+=2) {
+            visit(node.getChildAt(i));
+            if (!computed) continue;
+            // 计算实际值
+            Integer v_temp = node.getChildAt(i).data.intValue;
+            if (v1 != null && v_temp != null) {
+                switch (node.getChildAt(i-1).data.value) {
+                    case "+" -> v2 = v1 + v_temp;
+                    case "-" -> v2 = v1 - v_temp;
+                    case "*" -> v2 = v1 * v_temp;
+                    case "/" -> v2 = v1 / v_temp;
+                    case "%" -> v2 = v1 % v_temp;
+                }
+            }
+            v1 = v2;
+        }
+        if (computed)
+            node.data.intValue = v2;
+        node.data.dimension = node.getChildAt(0).data.dimension;
+    }
+
+    private void visitCmpExpr(TreeNode<NodeData> node) {
+        for (int i = 0; i < node.children.size(); i+=2)
+            visit(node.getChildAt(i));
+        node.data.dimension = node.getChildAt(0).data.dimension;
+    }
+
+    /**
+     * 处理 UnaryExpr 节点的候选式 UnaryOp UnaryExp
+     *
+     * @param node UnaryExpr节点
+     */
+    private void visitSignValUE(TreeNode<NodeData> node) {
+        visitUnaryExpr(node.getChildAt(1));
+        String opera = node.getChildAt(0).getChildAt(0).data.value;
+        Integer v = node.getChildAt(1).data.intValue;
+        if (v != null) {
+            // 计算实际值
+            if (opera.equals("+"))
+                node.data.intValue = v;
+            else if (opera.equals("-"))
+                node.data.intValue = -v;
+        }
+        node.data.dimension = 0;
+    }
+
+    private void visitUnaryExpr(TreeNode<NodeData> node) {
+        if (node.children.size() >= 3 && !analyzer.isFuncCallValid(node))
+            error();
+        switch (node.children.size()) {
+            case 1 -> {
+                visit(node.getChildAt(0));
+                node.data.intValue = node.getChildAt(0).data.intValue;
+                node.data.dimension = node.getChildAt(0).data.dimension;
+            }
+            case 2 -> visitSignValUE(node);
+            case 3 -> node.data.dimension = 0;
+            case 4 -> {
+                visit(node.getChildAt(2));
+                if (!analyzer.isFuncParamValid(node)) error();
+                node.data.dimension = 0;
+            }
+        }
+    }
+
+    private void visitPrimExpr(TreeNode<NodeData> node) {
+        TreeNode<NodeData> child = node.children.size() == 1 ? node.getChildAt(0) : node.getChildAt(1);
+        if (child.data.name.equals("Number")) {
+            node.data.intValue = Integer.parseInt(child.data.value);
+            node.data.dimension = 0;
+        } else {
+            visit(child);
+            node.data.intValue = child.data.intValue;
+            node.data.dimension = child.data.dimension;
+        }
+    }
+
+    private void visitFuncRParams(TreeNode<NodeData> node) {
+        analyzer.funcRParamsDepth++;
+        for (int i = 0; i < node.children.size(); i += 2)
+            visit(node.getChildAt(i));
+        analyzer.funcRParamsDepth--;
+    }
+
+    /**
+     * 数组元素引用：依次检查各维下标，dimension 为未给出下标的维数
+     *
+     * @param node Lval节点
+     * @param arrayItem 数组的符号表记录
+     */
+    private void visitArrayLval(TreeNode<NodeData> node, Item arrayItem) {
+        ArrayList<Integer> _arraySize = arrayItem.arraySize;
+        if (node.children.size() == 1) {
+            // 一般出现在调用函数传参中
+            node.data.dimension = _arraySize.size();
+        } else {
+            visit(node.getChildAt(2));
+            int exprIdx = 5, _dimension = 0;
+            for (int shapeIdx = 1; shapeIdx < _arraySize.size(); shapeIdx++) {
+                if (exprIdx < node.children.size())
+                    visit(node.getChildAt(exprIdx));
+                else
+                    _dimension += 1;
+                exprIdx += 3;
+            }
+            node.data.dimension = _dimension;
+        }
+    }
+
+    private void visitLval(TreeNode<NodeData> node) {
+        Item _identItem = analyzer.bind(node);
+        if (_identItem == null) error();
+
+        if (_identItem.vType == Item.ValueType.ARRAY) {
+            if (!analyzer.isArrayLvalValid(node))
+                error();
+            visitArrayLval(node, _identItem);
+        } else {
+            if (!analyzer.isNoArrayLvalValid(node)) error();
+            if (!node.parent.data.name.equals("Stmt")) {
+                // 计算值
+                if (analyzer.curBlockId == 0 || _identItem.hasCerVal)
+                    node.data.intValue = _identItem.intValue;
+                node.data.dimension = 0;
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package compiler.semantics.symtable;
 
+import compiler.ir.Value;
+import compiler.lexer.NameTable;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -29,18 +32,21 @@ public class Item {
     }
 
     public String name;                     /* 标识符名称 */
+    public int id = -1;                     /* 标识符编号 */
     public boolean isValid;                 /* 符号在当前区块是否有效 */
     public boolean hasCerVal = false;       /* 编译时是否有确定值 */
     public int blockId;                     /* 所在区块序号 */
     public IdentType iType;                 /* 标识符类型 */
     public ValueType vType;                 /* 标识符值类型 */
     public ArrayList<Item> funcParams;      /* 函数参数列表 */
-    public int regId;                       /* 寄存器ID */
+    public Value irValue;                   /* IR 中的地址、形参或函数 */
     public Integer intValue;                /* 编译时可求值 */
     public ArrayList<Integer> arraySize;    /* 数组长度 */
+    Item shadowed;                          /* 被本记录遮蔽的同名外层记录 */
 
     public Item(String name, int blockId, IdentType iType, ValueType vType, ArrayList<Item> funcParams) {
         this.name = name;
+        this.id = NameTable.intern(name);
         this.blockId = blockId;
         this.iType = iType;
         this.vType = vType;
@@ -84,6 +90,6 @@ public class Item {
 
     public String toString() {
         return String.format("%15s %10s %10s %12s %12d %10d %10s %20s %20s",
-                name, iType, vType, hasCerVal, intValue, blockId, isValid, arraySize.toString(), funcParams.toString());
+                name, iType, vType, hasCerVal, intValue, blockId, isValid, arraySize.toString(), String.valueOf(funcParams));
     }
 }
@@ -1,12 +1,24 @@
 package compiler.semantics.symtable;
 
+import compiler.lexer.NameTable;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * 符号表：symTable 按插入顺序保留全部记录用于输出；
+ * 查找以标识符编号为下标直接取得当前有效记录，同名的外层记录沿 shadowed 链保存，
+ * 各区块仍有效的记录单独登记，退出区块时只处理这些记录
+ */
 public class SymTable {
     public ArrayList<Item> symTable;
+    private Item[] visible;                                 /* 标识符编号到当前有效记录 */
+    private final ArrayList<ArrayList<Item>> blocks;        /* 下标为区块序号，记录该区块内有效的记录 */
 
     public SymTable() {
         symTable = new ArrayList<>();
+        visible = new Item[Math.max(NameTable.size(), 16)];
+        blocks = new ArrayList<>();
         initTable();
     }
 
@@ -14,12 +26,12 @@ public class SymTable {
      * 初始化符号表，加入库函数
      */
     private void initTable() {
-        symTable.add(Item.GETCH);
-        symTable.add(Item.GETINT);
-        symTable.add(Item.GETARRAY);
-        symTable.add(Item.PUTINT);
-        symTable.add(Item.PUTARRAY);
-        symTable.add(Item.PUTCH);
+        insert(Item.GETCH);
+        insert(Item.GETINT);
+        insert(Item.GETARRAY);
+        insert(Item.PUTINT);
+        insert(Item.PUTARRAY);
+        insert(Item.PUTCH);
     }
 
     /**
@@ -43,6 +55,14 @@ public class SymTable {
      */
     public void insert(Item item) {
         symTable.add(item);
+        if (!item.isValid) return;
+        if (item.id >= visible.length)
+            visible = Arrays.copyOf(visible, Math.max(item.id + 1, visible.length * 2));
+        item.shadowed = visible[item.id];
+        visible[item.id] = item;
+        while (blocks.size() <= item.blockId)
+            blocks.add(new ArrayList<>());
+        blocks.get(item.blockId).add(item);
     }
 
     /**
@@ -61,34 +81,17 @@ public class SymTable {
     }
 
     /**
-     * 获取符号表中指定 name 的有效标识符
+     * 获取符号表中指定编号的有效标识符
      *
-     * @param name 标识符属性
+     * @param id 标识符编号
      * @return 符号表记录元素，未查询到时返回空
      */
-    public Item getItem(String name) {
-        Item item = null;
-        for (int i=symTable.size()-1; i>=0; i--) {
-            Item temp = symTable.get(i);
-            if (temp.name.equals(name) && temp.isValid) {
-                item = temp;
-                break;
-            }
-        }
-        return item;
-    }
-
-    public ArrayList<Item> getParams(int blockId) {
-        ArrayList<Item> _items = new ArrayList<>();
-        for (Item item : symTable) {
-            if (item.iType == Item.IdentType.PARAM && item.blockId == blockId && item.isValid)
-                _items.add(item);
-        }
-        return _items;
+    public Item getItem(int id) {
+        return id < visible.length ? visible[id] : null;
     }
 
-    public boolean isDeclAvail(String name, int curBlockId) {
-        Item item = getItem(name);
+    public boolean isDeclAvail(int id, int curBlockId) {
+        Item item = getItem(id);
         return item == null || item.blockId != curBlockId;
     }
 
@@ -98,15 +101,15 @@ public class SymTable {
      * @param blockId 作用域ID
      */
     public void setBlockInvalid(int blockId) {
-        for (Item item : symTable)
-            if (item.blockId == blockId)
-                item.isValid = false;
-    }
-
-    public void setBlockValid(int blockId) {
-        for (Item item : symTable)
-            if (item.blockId == blockId)
-                item.isValid = true;
+        if (blockId >= blocks.size()) return;
+        ArrayList<Item> items = blocks.get(blockId);
+        for (int i = items.size()-1; i >= 0; i--) {
+            Item item = items.get(i);
+            item.isValid = false;
+            visible[item.id] = item.shadowed;
+            item.shadowed = null;
+        }
+        items.clear();
     }
 
     /**
@@ -1,61 +1,35 @@
 package compiler.utils;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * 文件操作代码
  */
 public class FileUtils {
     /**
-     * 将文本文件中的内容读入到buffer中
-     *
-     * @param buffer   buffer
-     * @param filePath 文件路径
-     * @throws IOException 异常
-     */
-    public static void readToBuffer(StringBuffer buffer, String filePath) throws IOException {
-        InputStream is = new FileInputStream(filePath);
-        String line; // 用来保存每行读取的内容
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        line = reader.readLine();
-        while (line != null) {
-            buffer.append(line);
-            buffer.append("\n");
-            line = reader.readLine();
-        }
-        reader.close();
-        is.close();
-    }
-
-    /**
-     * 读取文本文件内容
+     * 读取文本文件内容，整个文件一次读入后解码
      *
      * @param filePath 文件所在路径
      * @return 文本内容
      * @throws IOException 异常
      */
     public static String readFile(String filePath) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        FileUtils.readToBuffer(sb, filePath);
-        return sb.toString();
+        return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
     }
 
     /**
-     * 将字符串写入文本文件
+     * 打开带缓冲的文本输出，路径为空时输出到标准输出
      *
      * @param filePath 文件所在路径
-     * @param content 字符串内容
+     * @return 输出流
      * @throws IOException 异常
      */
-    public static void writeFile(String filePath, String content) throws IOException {
-        FileWriter writer;
-        try {
-            writer = new FileWriter(filePath);
-            writer.write(content);
-            writer.flush();
-            writer.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public static PrintWriter openWriter(String filePath) throws IOException {
+        if (filePath == null)
+            return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        return new PrintWriter(Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,43 @@
+import compiler.lexer.Scanner;
+import compiler.lexer.TokenStream;
+import compiler.parser.Descender;
+import compiler.parser.ast.NodeData;
+import compiler.parser.ast.TreeNode;
+import compiler.utils.FileUtils;
+
+import java.util.ArrayDeque;
+
+/**
+ * 语法树的堆占用：建树前后各做一次 GC，输出节点数、叶节点数与每个节点平均占用的字节数
+ *
+ * 用法：java AstHeap 源文件，源文件可由 test/gen.sh source N 生成
+ */
+public class AstHeap {
+
+    public static void main(String[] args) throws Exception {
+        String src = FileUtils.readFile(args[0]);
+        long before = usedHeap();
+        TreeNode<NodeData> ast = new Descender(new TokenStream(new Scanner(src))).buildAST();
+        long after = usedHeap();
+
+        int nodes = 0, leaves = 0;
+        ArrayDeque<TreeNode<NodeData>> stack = new ArrayDeque<>();
+        stack.push(ast);
+        while (!stack.isEmpty()) {
+            TreeNode<NodeData> node = stack.pop();
+            nodes++;
+            if (node.isLeaf()) leaves++;
+            for (TreeNode<NodeData> child : node.children)
+                stack.push(child);
+        }
+        System.out.println(nodes + " nodes, " + leaves + " leaves, "
+                + (after - before) / 1024 / 1024 + " MB, " + (after - before) / nodes + " bytes/node");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,24 @@
+import compiler.lexer.Scanner;
+import compiler.utils.FileUtils;
+
+/**
+ * 词法分析吞吐量：按 Main 的方式读入源文件，重复扫描并输出每轮的 token 数与耗时
+ *
+ * 用法：java LexBench 源文件 [轮数]，源文件可由 test/gen.sh source N 生成
+ */
+public class LexBench {
+
+    public static void main(String[] args) throws Exception {
+        String src = FileUtils.readFile(args[0]);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            Scanner scanner = new Scanner(src);
+            int tokens = 0;
+            while (scanner.getToken() != null)
+                tokens++;
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            System.out.println(tokens + " tokens in " + elapsed + " ms");
+        }
+    }
+}
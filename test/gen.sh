@@ -0,0 +1,121 @@
+#!/bin/bash
+# 生成合成的大输入，写到标准输出
+#
+# 用法：test/gen.sh source N     N 组互不重名的全局变量与函数，末尾附一个 main，约 4 KB/组
+#       test/gen.sh comments N   函数体内连续 N 行注释，行注释与块注释交替
+#       test/gen.sh unary N      return 后跟 N 个连续的负号
+#       test/gen.sh parens N     return 后跟 N 层嵌套括号
+#       test/gen.sh not N        赋值语句右侧为 N 个连续的 !
+
+case "$1" in
+    source)
+        awk -v n="$2" '
+        BEGIN {
+            for (k = 0; k < n; k++) {
+                print "// group " k
+                print "int g_" k " = 0x1F;"
+                print "int arr_" k "[10];"
+                print "int fib_" k "(int n) {"
+                print "    if (n < 2) return n;"
+                print "    return fib_" k "(n - 1) + fib_" k "(n - 2);"
+                print "}"
+                print "int sum_" k "(int a[], int n) {"
+                print "    int i = 0, s = 0;"
+                print "    while (i < n) {"
+                print "        s = s + a[i];"
+                print "        i = i + 1;"
+                print "    }"
+                print "    return s;"
+                print "}"
+                print "int find_" k "(int a[], int n, int x) {"
+                print "    int i = 0;"
+                print "    while (1) {"
+                print "        if (i >= n) return -1;"
+                print "        if (a[i] == x) return i;"
+                print "        i = i + 1;"
+                print "    }"
+                print "    return -2;"
+                print "}"
+                print "void bump_" k "(int k) {"
+                print "    /* add k, k-1, ..., 1 to the global */"
+                print "    while (k > 0) {"
+                print "        g_" k " = g_" k " + k;"
+                print "        k = k - 1;"
+                print "    }"
+                print "}"
+                print "int run_" k "() {"
+                print "    int i = 0, j, t;"
+                print "    while (i < 10) {"
+                print "        arr_" k "[i] = i * i - 3 * i;"
+                print "        i = i + 1;"
+                print "    }"
+                print "    putint(sum_" k "(arr_" k ", 10)); putch(10);"
+                print "    putint(find_" k "(arr_" k ", 10, 18)); putch(32); putint(find_" k "(arr_" k ", 10, 7)); putch(10);"
+                print "    putint(fib_" k "(15)); putch(10);"
+                print "    bump_" k "(4); putint(g_" k "); putch(10);"
+                print "    i = 0; t = 0;"
+                print "    while (i < 8) {"
+                print "        j = 0;"
+                print "        while (j < i) {"
+                print "            if (j % 3 == 1) { j = j + 1; continue; }"
+                print "            if (i + j > 11) break;"
+                print "            t = t + i * j;"
+                print "            int i = j + 100;"
+                print "            t = t - i / 50;"
+                print "            j = j + 1;"
+                print "        }"
+                print "        if (t > 40) { if (t % 2) t = t - 7; else t = t + 3; }"
+                print "        i = i + 1;"
+                print "    }"
+                print "    putint(t); putch(10);"
+                print "    int a = 1, b = 2, c = 017;"
+                print "    if (a < b && b < c || c == 0) { a = b; b = c; c = a; } else a = 9;"
+                print "    if (!a && a <= c || b != c) a = -a;"
+                print "    putint(a * 100 + b * 10 + c); putch(10);"
+                print "    return t % 256;"
+                print "}"
+            }
+            print "int main() {"
+            print "    return 0;"
+            print "}"
+        }'
+        ;;
+    comments)
+        awk -v n="$2" '
+        BEGIN {
+            print "int main() {"
+            for (k = 0; k < n; k++)
+                print (k % 2 ? "    /* comment " k " */" : "    // comment " k)
+            print "    return 0;"
+            print "}"
+        }'
+        ;;
+    unary|parens|not)
+        awk -v mode="$1" -v n="$2" '
+        BEGIN {
+            print "int main() {"
+            if (mode == "unary") {
+                printf "    return "
+                for (k = 0; k < n; k++) printf "- "
+                print "1;"
+            } else if (mode == "parens") {
+                printf "    return "
+                for (k = 0; k < n; k++) printf "("
+                printf "1"
+                for (k = 0; k < n; k++) printf ")"
+                print ";"
+            } else {
+                print "    int a;"
+                printf "    a = "
+                for (k = 0; k < n; k++) printf "!"
+                print "1;"
+                print "    return a;"
+            }
+            print "}"
+        }'
+        ;;
+    *)
+        echo "usage: $0 source|comments|unary|parens|not N" >&2
+        exit 2
+        ;;
+esac
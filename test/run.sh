@@ -0,0 +1,52 @@
+#!/bin/bash
+# 回归检查：将 src 编译到临时目录后依次运行各项检查，任一项失败时以状态 1 退出
+#
+# 用法：test/run.sh
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+OUT=$(mktemp -d)
+trap 'rm -rf "$OUT"' EXIT
+(cd "$ROOT/src" && javac -encoding UTF-8 -nowarn -d "$OUT/classes" Main.java) || exit 1
+
+failed=0
+pass() { echo "ok   $1"; }
+fail() { echo "FAIL $1"; failed=1; }
+
+# 生成 llvm 后检查入口块（第一个 label 之前）中没有 load
+entry_has_no_load() {
+    java -cp "$OUT/classes" Main -llvm "$1" -o "$OUT/out.ll" > /dev/null &&
+        ! awk '/^define/ { body = 1; next } body && /^[0-9]+:/ { exit } body' "$OUT/out.ll" | grep -q load
+}
+
+# 运行编译器并丢弃输出，要求以给定状态退出，且标准错误中没有 Java 异常
+exits_cleanly() {
+    local status=$1; shift
+    java -Xss1m -cp "$OUT/classes" Main "$@" -o /dev/null > /dev/null 2> "$OUT/err"
+    [ $? -eq "$status" ] && ! grep -q "Exception\|Error" "$OUT/err"
+}
+
+cd "$ROOT/test/cases"
+
+# 无出口循环中受条件保护的 load 不能外提到循环之前
+entry_has_no_load licm_guarded_load.sy && pass "licm-guarded-load" || fail "licm-guarded-load"
+
+# 文件以行注释结束且没有换行时，扫描器不能越过文本末尾
+exits_cleanly 0 -dump-ast line_comment_at_eof.sy && pass "line-comment-at-eof" || fail "line-comment-at-eof"
+
+# 输出符号表时库函数的参数没有参数表，不能因此抛出异常
+exits_cleanly 0 -dump-symbol-table shadowed_symbols.sy && pass "dump-symbol-table" || fail "dump-symbol-table"
+
+# 使用未声明的标识符应报告编译错误，而不是抛出异常
+exits_cleanly 1 -llvm undeclared_ident.sy && pass "undeclared-ident" || fail "undeclared-ident"
+
+# 大量连续注释不能使扫描器栈溢出
+"$ROOT/test/gen.sh" comments 100000 > "$OUT/comments.sy"
+exits_cleanly 0 -dump-tokens "$OUT/comments.sy" && pass "comments-100k-lines" || fail "comments-100k-lines"
+
+# 前缀运算符与括号的深层嵌套链不能使语法分析栈溢出；按缩进输出的语法树大小与深度的平方成正比，故丢弃输出
+for chain in "unary 100000" "parens 100000" "not 20000"; do
+    "$ROOT/test/gen.sh" $chain > "$OUT/chain.sy"
+    exits_cleanly 0 -dump-ast "$OUT/chain.sy" && pass "chain-${chain/ /-}" || fail "chain-${chain/ /-}"
+done
+
+exit $failed